@@ -0,0 +1,114 @@
+package frc.lib.math;
+
+import java.util.Arrays;
+
+/**
+ * Ordinary least squares fit of y = x . beta that is built up one sample at a time. Only the
+ * normal equations are kept, so adding a sample is O(n^2) with no allocation and the raw samples
+ * do not need to be stored.
+ */
+public class IncrementalLeastSquares {
+
+    private final int n;
+    private final double[] xtx;    // n x n, row major
+    private final double[] xty;
+    private final double[] solveA;
+    private final double[] solution;
+    private int samples = 0;
+
+    /**
+     * @param features Number of regressors per sample
+     */
+    public IncrementalLeastSquares(int features) {
+        this.n = features;
+        this.xtx = new double[features * features];
+        this.xty = new double[features];
+        this.solveA = new double[features * (features + 1)];
+        this.solution = new double[features];
+    }
+
+    /**
+     * @param x Regressors of the sample, length must match the feature count
+     * @param y Observed value
+     */
+    public void add(double[] x, double y) {
+        for (int i = 0; i < n; i++) {
+            double xi = x[i];
+            xty[i] += xi * y;
+            for (int j = 0; j < n; j++) {
+                xtx[i * n + j] += xi * x[j];
+            }
+        }
+        samples++;
+    }
+
+    public void reset() {
+        Arrays.fill(xtx, 0.0);
+        Arrays.fill(xty, 0.0);
+        Arrays.fill(solution, 0.0);
+        samples = 0;
+    }
+
+    public int getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * Solve the normal equations with Gaussian elimination and partial pivoting.
+     *
+     * @return True if the system was well conditioned enough to solve
+     */
+    public boolean solve() {
+        if (samples < n) {
+            return false;
+        }
+
+        int cols = n + 1;
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(xtx, i * n, solveA, i * cols, n);
+            solveA[i * cols + n] = xty[i];
+        }
+
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(solveA[row * cols + col]) > Math.abs(solveA[pivot * cols + col])) {
+                    pivot = row;
+                }
+            }
+            if (Math.abs(solveA[pivot * cols + col]) < 1e-12) {
+                return false;
+            }
+            if (pivot != col) {
+                for (int k = 0; k < cols; k++) {
+                    double tmp = solveA[col * cols + k];
+                    solveA[col * cols + k] = solveA[pivot * cols + k];
+                    solveA[pivot * cols + k] = tmp;
+                }
+            }
+            for (int row = col + 1; row < n; row++) {
+                double factor = solveA[row * cols + col] / solveA[col * cols + col];
+                for (int k = col; k < cols; k++) {
+                    solveA[row * cols + k] -= factor * solveA[col * cols + k];
+                }
+            }
+        }
+
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = solveA[row * cols + n];
+            for (int k = row + 1; k < n; k++) {
+                sum -= solveA[row * cols + k] * solution[k];
+            }
+            solution[row] = sum / solveA[row * cols + row];
+        }
+        return true;
+    }
+
+    /**
+     * @param i Feature index
+     * @return Coefficient from the last successful {@link #solve()}
+     */
+    public double getCoefficient(int i) {
+        return solution[i];
+    }
+}
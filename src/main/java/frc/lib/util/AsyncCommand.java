@@ -0,0 +1,63 @@
+package frc.lib.util;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+
+/**
+ * Runs work on the {@link AsyncWorker} and finishes once the result is back. The result callback
+ * runs on the robot loop, so it may use subsystems. Interrupting the command or passing the
+ * timeout cancels the work.
+ */
+public class AsyncCommand<T> extends CommandBase {
+
+    private final Callable<T> work;
+    private final Consumer<T> onResult;
+    private final double timeoutSeconds;
+
+    private AsyncTask<T> task;
+
+    /**
+     * @param work Runs on a worker thread
+     * @param onResult Runs on the robot loop with the result if the work succeeded in time
+     * @param timeoutSeconds How long to wait for the result
+     * @param requirements Subsystems the result callback uses
+     */
+    public AsyncCommand(Callable<T> work, Consumer<T> onResult, double timeoutSeconds, Subsystem... requirements) {
+        this.work = work;
+        this.onResult = onResult;
+        this.timeoutSeconds = timeoutSeconds;
+        addRequirements(requirements);
+    }
+
+    @Override
+    public void initialize() {
+        this.task = AsyncWorker.getInstance().submit(this.work, this.timeoutSeconds);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        switch (this.task.getState()) {
+            case SUCCEEDED:
+                this.onResult.accept(this.task.getResult());
+                break;
+            case FAILED:
+                DriverStation.reportError("Async work failed: " + this.task.getError(), this.task.getError().getStackTrace());
+                break;
+            default:
+                if (this.task.isExpired()) {
+                    DriverStation.reportWarning("Async work timed out after " + this.timeoutSeconds + "s", false);
+                }
+                this.task.cancel();
+                break;
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return this.task.isDone() || this.task.isExpired();
+    }
+}
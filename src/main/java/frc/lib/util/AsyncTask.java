@@ -0,0 +1,109 @@
+package frc.lib.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Handle for work submitted to the {@link AsyncWorker}. The state seen through this handle only
+ * changes inside {@link AsyncWorker#poll()}, so the robot loop always sees a consistent result for
+ * the whole loop.
+ */
+public class AsyncTask<T> {
+
+    public enum State {
+        PENDING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED
+    }
+
+    private final Callable<T> work;
+    private final double deadline;
+    private Future<?> future;
+
+    /* Set by the worker thread, published to the robot loop by poll() */
+    private volatile T pendingResult;
+    private volatile Throwable pendingError;
+
+    /* Robot loop only */
+    private State state = State.PENDING;
+    private T result;
+    private Throwable error;
+
+    AsyncTask(Callable<T> work, double timeoutSeconds) {
+        this.work = work;
+        this.deadline = Timer.getFPGATimestamp() + timeoutSeconds;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Runs on a worker thread.
+     */
+    void run() {
+        try {
+            pendingResult = work.call();
+        } catch (Throwable t) {
+            pendingError = t;
+        }
+    }
+
+    void fail(Throwable t) {
+        pendingError = t;
+    }
+
+    /**
+     * Runs on the robot loop from {@link AsyncWorker#poll()}.
+     */
+    void publish() {
+        if (state != State.PENDING) {
+            return;
+        }
+        if (pendingError != null) {
+            error = pendingError;
+            state = State.FAILED;
+        } else {
+            result = pendingResult;
+            state = State.SUCCEEDED;
+        }
+    }
+
+    /**
+     * Stop waiting for the result and interrupt the worker if it is still running.
+     */
+    public void cancel() {
+        if (state == State.PENDING) {
+            state = State.CANCELLED;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isDone() {
+        return state != State.PENDING;
+    }
+
+    public boolean isExpired() {
+        return state == State.PENDING && Timer.getFPGATimestamp() > deadline;
+    }
+
+    /**
+     * @return The result, or null if the work has not succeeded
+     */
+    public T getResult() {
+        return result;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+}
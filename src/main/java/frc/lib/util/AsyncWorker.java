@@ -0,0 +1,86 @@
+package frc.lib.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants;
+
+/**
+ * Runs blocking or slow work (file IO, trajectory generation, parsing) off the robot loop on a
+ * small bounded pool. Finished work is handed back through a lock-free queue that the robot loop
+ * drains in {@link #poll()}, so results are only ever observed from the main thread.
+ */
+public final class AsyncWorker {
+
+    private static AsyncWorker instance;
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentLinkedQueue<AsyncTask<?>> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private AsyncWorker() {
+        this.executor = new ThreadPoolExecutor(
+            Constants.Async.WORKER_THREADS,
+            Constants.Async.WORKER_THREADS,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Constants.Async.QUEUE_CAPACITY),
+            runnable -> {
+                String name = "AsyncWorker-" + threadCount.getAndIncrement();
+                Thread thread = new Thread(() -> {
+                    ThreadPriorities.configureBackground(name);
+                    runnable.run();
+                }, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+
+    public static synchronized AsyncWorker getInstance() {
+        if (instance == null) {
+            instance = new AsyncWorker();
+        }
+        return instance;
+    }
+
+    /**
+     * @param work Runs on a worker thread, must not touch subsystems or motor controllers
+     * @param timeoutSeconds Time after which {@link AsyncTask#isExpired()} reports true
+     * @return Handle to poll from the robot loop. If the queue is full the task fails on the next poll
+     */
+    public <T> AsyncTask<T> submit(Callable<T> work, double timeoutSeconds) {
+        AsyncTask<T> task = new AsyncTask<>(work, timeoutSeconds);
+        try {
+            task.setFuture(this.executor.submit(() -> {
+                task.run();
+                this.completed.add(task);
+            }));
+        } catch (RejectedExecutionException e) {
+            DriverStation.reportWarning("AsyncWorker queue full, rejecting task", false);
+            task.fail(e);
+            this.completed.add(task);
+        }
+        return task;
+    }
+
+    public <T> AsyncTask<T> submit(Callable<T> work) {
+        return submit(work, Constants.Async.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Publish results of finished work. Call once per loop from the robot thread, before the
+     * command scheduler runs.
+     */
+    public void poll() {
+        AsyncTask<?> task;
+        while ((task = this.completed.poll()) != null) {
+            task.publish();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package frc.lib.util;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+
+/**
+ * Holds the control request for a TalonFX until {@link OutputBuffer#flushAll()} sends every
+ * motor's request together at the end of the loop. Requests within an epsilon of the one already
+ * sent are not forwarded; the Talon keeps repeating its last control frame on its own, and the
+ * last request is re-sent anyway once the refresh period runs out in case the motor reset.
+ */
+public class BufferedMotorOutput {
+
+    private final TalonFX motor;
+
+    /* Latest request */
+    private ControlMode mode = ControlMode.PercentOutput;
+    private double value = 0.0;
+    private DemandType demandType = DemandType.Neutral;
+    private double demand = 0.0;
+    private boolean pending = false;
+
+    /* Last request sent to the motor */
+    private ControlMode sentMode;
+    private double sentValue;
+    private DemandType sentDemandType;
+    private double sentDemand;
+    private double lastSendTime = Double.NEGATIVE_INFINITY;
+
+    private long forwardedWrites = 0;
+    private long suppressedWrites = 0;
+    private long refreshWrites = 0;
+
+    public BufferedMotorOutput(TalonFX motor) {
+        this.motor = motor;
+        OutputBuffer.register(this);
+    }
+
+    public TalonFX getMotor() {
+        return motor;
+    }
+
+    public void set(ControlMode mode, double value) {
+        set(mode, value, DemandType.Neutral, 0.0);
+    }
+
+    public void set(ControlMode mode, double value, DemandType demandType, double demand) {
+        this.mode = mode;
+        this.value = value;
+        this.demandType = demandType;
+        this.demand = demand;
+        this.pending = true;
+
+        if (!Constants.ControlLoop.BUFFER_OUTPUTS) {
+            flush(Timer.getFPGATimestamp());
+        }
+    }
+
+    /**
+     * @param mode Control mode of the request
+     * @return Smallest change in value worth sending, in the units of that mode
+     */
+    private static double valueEpsilon(ControlMode mode) {
+        switch (mode) {
+            case PercentOutput:
+                return Constants.ControlLoop.PERCENT_OUTPUT_EPSILON;
+            case Position:
+            case Velocity:
+            case MotionMagic:
+                return Constants.ControlLoop.SENSOR_UNITS_EPSILON;
+            default:
+                return 0.0;
+        }
+    }
+
+    private static boolean changed(double requested, double sent, double epsilon) {
+        // Always let an exact zero through so a stop is never left a hair off
+        if (requested == 0.0) {
+            return sent != 0.0;
+        }
+        return Math.abs(requested - sent) > epsilon;
+    }
+
+    private boolean differsFromSent() {
+        return mode != sentMode
+                || demandType != sentDemandType
+                || changed(value, sentValue, valueEpsilon(mode))
+                || changed(demand, sentDemand, Constants.ControlLoop.FEEDFORWARD_EPSILON);
+    }
+
+    /**
+     * Send the latest request if it differs from the last one sent, or re-send the last request
+     * if nothing has gone out for longer than the refresh period.
+     *
+     * @param now FPGA timestamp of this flush
+     */
+    public void flush(double now) {
+        boolean stale = sentMode != null && (now - lastSendTime) >= Constants.ControlLoop.OUTPUT_REFRESH_PERIOD;
+
+        if (pending) {
+            pending = false;
+            if (differsFromSent()) {
+                send(mode, value, demandType, demand, now);
+                forwardedWrites++;
+                return;
+            }
+            if (!stale) {
+                suppressedWrites++;
+                return;
+            }
+        } else if (!stale) {
+            return;
+        }
+
+        send(sentMode, sentValue, sentDemandType, sentDemand, now);
+        refreshWrites++;
+    }
+
+    private void send(ControlMode mode, double value, DemandType demandType, double demand, double now) {
+        motor.set(mode, value, demandType, demand);
+        sentMode = mode;
+        sentValue = value;
+        sentDemandType = demandType;
+        sentDemand = demand;
+        lastSendTime = now;
+    }
+
+    public long getForwardedWrites() {
+        return forwardedWrites;
+    }
+
+    public long getSuppressedWrites() {
+        return suppressedWrites;
+    }
+
+    public long getRefreshWrites() {
+        return refreshWrites;
+    }
+}
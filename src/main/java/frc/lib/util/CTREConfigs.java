@@ -7,7 +7,10 @@ import com.ctre.phoenix.sensors.CANCoderConfiguration;
 import com.ctre.phoenix.sensors.SensorInitializationStrategy;
 import com.ctre.phoenix.sensors.SensorTimeBase;
 
+import frc.lib.math.Conversions;
 import frc.robot.Constants;
+import frc.robot.Tuning;
+import frc.robot.config.SwerveConfig;
 
 public final class CTREConfigs {
     
@@ -15,46 +18,46 @@ public final class CTREConfigs {
     public TalonFXConfiguration swerveAngleTalonFXConfig;
     public CANCoderConfiguration swerveCANCoderConfig;
 
-    public CTREConfigs () {
+    public CTREConfigs (SwerveConfig config) {
         this.swerveDriveTalonFXConfig   = new TalonFXConfiguration();
         this.swerveAngleTalonFXConfig   = new TalonFXConfiguration();
         this.swerveCANCoderConfig       = new CANCoderConfiguration();
 
         /* Swerve Angle Motor Configurations */
-        SupplyCurrentLimitConfiguration angleSupplyLimit = new SupplyCurrentLimitConfiguration(
-            Constants.SwerveDrivetrain.ANGLE_ENABLE_CURRENT_LIMIT, 
-            Constants.SwerveDrivetrain.ANGLE_CONTINUOUS_CL, 
-            Constants.SwerveDrivetrain.ANGLE_PEAK_CL, 
-            Constants.SwerveDrivetrain.ANGLE_PEAK_CURRENT_DURATION);
-
-        this.swerveAngleTalonFXConfig.slot0.kP = Constants.SwerveDrivetrain.ANGLE_kP;
-        this.swerveAngleTalonFXConfig.slot0.kI = Constants.SwerveDrivetrain.ANGLE_kI;
-        this.swerveAngleTalonFXConfig.slot0.kD = Constants.SwerveDrivetrain.ANGLE_kD;
-        this.swerveAngleTalonFXConfig.slot0.kF = Constants.SwerveDrivetrain.ANGLE_kF;
+        SupplyCurrentLimitConfiguration angleSupplyLimit = config.angleCurrentLimit.toSupplyConfiguration();
+
+        this.swerveAngleTalonFXConfig.slot0.kP = Tuning.ANGLE_kP.get();
+        this.swerveAngleTalonFXConfig.slot0.kI = config.angleGains.kI;
+        this.swerveAngleTalonFXConfig.slot0.kD = Tuning.ANGLE_kD.get();
+        this.swerveAngleTalonFXConfig.slot0.kF = config.angleGains.kF;
+        this.swerveAngleTalonFXConfig.slot1.kP = Tuning.ANGLE_kP.get();
+        this.swerveAngleTalonFXConfig.slot1.kI = config.angleGains.kI;
+        this.swerveAngleTalonFXConfig.slot1.kD = Tuning.ANGLE_kD.get();
+        this.swerveAngleTalonFXConfig.slot1.kF = Constants.SwerveDrivetrain.ANGLE_MOTION_MAGIC_kF;
+        // Motion Magic wants counts per 100ms and counts per 100ms per second
+        this.swerveAngleTalonFXConfig.motionCruiseVelocity = Conversions.degreesToFalcon(Constants.SwerveDrivetrain.ANGLE_MOTION_MAGIC_CRUISE, config.angleGearRatio) / 10.0;
+        this.swerveAngleTalonFXConfig.motionAcceleration = Conversions.degreesToFalcon(Constants.SwerveDrivetrain.ANGLE_MOTION_MAGIC_ACCEL, config.angleGearRatio) / 10.0;
+        this.swerveAngleTalonFXConfig.motionCurveStrength = Constants.SwerveDrivetrain.ANGLE_MOTION_MAGIC_SMOOTHING;
         this.swerveAngleTalonFXConfig.supplyCurrLimit = angleSupplyLimit;
         this.swerveAngleTalonFXConfig.initializationStrategy = SensorInitializationStrategy.BootToZero;
 
 
         /* Swerve Drive Motor Configuration */
-        SupplyCurrentLimitConfiguration driveSupplyLimit = new SupplyCurrentLimitConfiguration(
-            Constants.SwerveDrivetrain.DRIVE_ENABLE_CURRENT_LIMIT, 
-            Constants.SwerveDrivetrain.DRIVE_CONTINUOUS_CL, 
-            Constants.SwerveDrivetrain.DRIVE_PEAK_CL, 
-            Constants.SwerveDrivetrain.DRIVE_PEAK_CURRENT_DURATION);
-
-        this.swerveDriveTalonFXConfig.slot0.kP = Constants.SwerveDrivetrain.DRIVE_kP;
-        this.swerveDriveTalonFXConfig.slot0.kI = Constants.SwerveDrivetrain.DRIVE_kI;
-        this.swerveDriveTalonFXConfig.slot0.kD = Constants.SwerveDrivetrain.DRIVE_kD;
-        this.swerveDriveTalonFXConfig.slot0.kF = Constants.SwerveDrivetrain.DRIVE_kF;        
+        SupplyCurrentLimitConfiguration driveSupplyLimit = config.driveCurrentLimit.toSupplyConfiguration();
+
+        this.swerveDriveTalonFXConfig.slot0.kP = Tuning.DRIVE_kP.get();
+        this.swerveDriveTalonFXConfig.slot0.kI = config.driveGains.kI;
+        this.swerveDriveTalonFXConfig.slot0.kD = config.driveGains.kD;
+        this.swerveDriveTalonFXConfig.slot0.kF = config.driveGains.kF;        
         this.swerveDriveTalonFXConfig.supplyCurrLimit = driveSupplyLimit;
         this.swerveDriveTalonFXConfig.initializationStrategy = SensorInitializationStrategy.BootToZero;
-        this.swerveDriveTalonFXConfig.openloopRamp = Constants.SwerveDrivetrain.OPEN_LOOP_RAMP;
-        this.swerveDriveTalonFXConfig.closedloopRamp = Constants.SwerveDrivetrain.CLOSED_LOOP_RAMP;
+        this.swerveDriveTalonFXConfig.openloopRamp = config.openLoopRamp;
+        this.swerveDriveTalonFXConfig.closedloopRamp = config.closedLoopRamp;
 
         
         /* Swerve CANCoder Configuration */
         this.swerveCANCoderConfig.absoluteSensorRange = AbsoluteSensorRange.Unsigned_0_to_360;
-        this.swerveCANCoderConfig.sensorDirection = Constants.SwerveDrivetrain.CAN_CODER_INVERTED;
+        this.swerveCANCoderConfig.sensorDirection = config.canCoderInverted;
         this.swerveCANCoderConfig.initializationStrategy = SensorInitializationStrategy.BootToAbsolutePosition;
         this.swerveCANCoderConfig.sensorTimeBase = SensorTimeBase.PerSecond;
     }
@@ -0,0 +1,160 @@
+package frc.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * One driver station controller, sampled once per loop. The axes are copied into an array and all
+ * buttons are read as a single bitmask, so presses and releases for every button come out of two
+ * bitwise operations. Bindings are only looked at on loops where some button changed, instead of
+ * every binding polling its own button every loop.
+ *
+ * <p>Buttons are numbered from 1 like the driver station and {@link edu.wpi.first.wpilibj.PS4Controller.Button}.
+ * Each snapshot is owned by whoever created it, which has to call {@link #update()} every loop.
+ */
+public class ControllerSnapshot {
+
+    private enum Edge {
+        PRESS,
+        RELEASE,
+        WHILE_TRUE
+    }
+
+    private static final class Binding {
+        final int mask;
+        final Edge edge;
+        final Command command;
+
+        Binding(int mask, Edge edge, Command command) {
+            this.mask = mask;
+            this.edge = edge;
+            this.command = command;
+        }
+    }
+
+    private final int port;
+    private final double[] axes = new double[DriverStation.kMaxJoystickAxes];
+    private final List<Binding> bindings = new ArrayList<>();
+
+    private int buttons;
+    private int pressed;
+    private int released;
+
+    public ControllerSnapshot(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Sample the controller and schedule the commands bound to buttons that changed. Call once per
+     * loop from the robot thread, before the command scheduler.
+     */
+    public void update() {
+        readAxes(axes);
+
+        int previous = buttons;
+        buttons = readButtons();
+        pressed = buttons & ~previous;
+        released = previous & ~buttons;
+        if ((pressed | released) == 0) {
+            return;
+        }
+
+        for (int i = 0; i < bindings.size(); i++) {
+            Binding binding = bindings.get(i);
+            boolean wasPressed = (pressed & binding.mask) != 0;
+            boolean wasReleased = (released & binding.mask) != 0;
+            switch (binding.edge) {
+                case PRESS:
+                    if (wasPressed) {
+                        binding.command.schedule();
+                    }
+                    break;
+                case RELEASE:
+                    if (wasReleased) {
+                        binding.command.schedule();
+                    }
+                    break;
+                case WHILE_TRUE:
+                    if (wasPressed) {
+                        binding.command.schedule();
+                    } else if (wasReleased) {
+                        binding.command.cancel();
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Fill every axis from the driver station, zero for axes the controller does not have.
+     * Simulations override this and {@link #readButtons()} to script the inputs.
+     */
+    protected void readAxes(double[] axes) {
+        int axisCount = Math.min(DriverStation.getStickAxisCount(port), axes.length);
+        for (int i = 0; i < axes.length; i++) {
+            axes[i] = (i < axisCount) ? DriverStation.getStickAxis(port, i) : 0.0;
+        }
+    }
+
+    /**
+     * @return Every button as a bitmask, button 1 in the lowest bit
+     */
+    protected int readButtons() {
+        return DriverStation.getStickButtons(port);
+    }
+
+    private static int mask(int button) {
+        if (button < 1 || button > 32) {
+            throw new IllegalArgumentException("Button must be from 1 to 32, got " + button);
+        }
+        return 1 << (button - 1);
+    }
+
+    /* Bindings */
+    public void onPress(int button, Command command) {
+        bindings.add(new Binding(mask(button), Edge.PRESS, command));
+    }
+
+    public void onRelease(int button, Command command) {
+        bindings.add(new Binding(mask(button), Edge.RELEASE, command));
+    }
+
+    /**
+     * Schedule the command when the button is pressed and cancel it when released, like
+     * {@link edu.wpi.first.wpilibj2.command.button.Trigger#whileTrue}. A command that ends while the
+     * button is still down is not scheduled again.
+     */
+    public void whileTrue(int button, Command command) {
+        bindings.add(new Binding(mask(button), Edge.WHILE_TRUE, command));
+    }
+
+    /* Loop sample */
+    public double getAxis(int axis) {
+        return axes[axis];
+    }
+
+    public boolean isDown(int button) {
+        return (buttons & mask(button)) != 0;
+    }
+
+    /**
+     * @return True only on the loop the button went down
+     */
+    public boolean wasPressed(int button) {
+        return (pressed & mask(button)) != 0;
+    }
+
+    /**
+     * @return True only on the loop the button came up
+     */
+    public boolean wasReleased(int button) {
+        return (released & mask(button)) != 0;
+    }
+
+    public int getPort() {
+        return port;
+    }
+}
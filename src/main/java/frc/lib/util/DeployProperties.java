@@ -0,0 +1,81 @@
+package frc.lib.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Small key/value files kept in the deploy directory. Files written on the robot live in
+ * /home/lvuser/deploy and are replaced by the next deploy, so copy them back into
+ * src/main/deploy to keep them.
+ */
+public final class DeployProperties {
+
+    private DeployProperties() {}
+
+    public static Path resolve(String name) {
+        return Filesystem.getDeployDirectory().toPath().resolve(name + ".properties");
+    }
+
+    /**
+     * @param name Path relative to the deploy directory, without extension
+     * @return The stored values, empty if the file does not exist or can't be read
+     */
+    public static Properties load(String name) {
+        Properties properties = new Properties();
+        Path path = resolve(name);
+        if (!Files.exists(path)) {
+            return properties;
+        }
+
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            DriverStation.reportError("Unable to read " + path.toString(), e.getStackTrace());
+        }
+        return properties;
+    }
+
+    /**
+     * @param name Path relative to the deploy directory, without extension
+     * @param properties Values to store
+     * @param comment Header written at the top of the file
+     * @return True if the file was written
+     */
+    public static boolean save(String name, Properties properties, String comment) {
+        Path path = resolve(name);
+        try {
+            Files.createDirectories(path.getParent());
+            try (OutputStream out = Files.newOutputStream(path)) {
+                properties.store(out, comment);
+            }
+            System.out.println("Saved " + path.toString());
+            return true;
+        } catch (IOException e) {
+            DriverStation.reportError("Unable to write " + path.toString(), e.getStackTrace());
+            return false;
+        }
+    }
+
+    /**
+     * @return The stored value, or the fallback if it is missing or not a number
+     */
+    public static double getDouble(Properties properties, String key, double fallback) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            DriverStation.reportWarning("Ignoring non-numeric value for " + key + ": " + value, false);
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package frc.lib.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+import com.sun.management.GcInfo;
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import frc.robot.Constants;
+
+/**
+ * Samples garbage collector activity and the robot loop's allocation rate from a low rate
+ * background notifier, so loop overruns can be lined up with collections.
+ */
+public class JvmTelemetry {
+
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long loopThreadId;
+    private final Notifier notifier;
+
+    private long lastCount = 0;
+    private long lastTimeMs = 0;
+    private long lastAllocated = -1;
+    private double lastSampleTime = 0.0;
+    private boolean priorityConfigured = false;
+
+    /* Written by the notifier thread, read by the dashboard */
+    private volatile double gcCount;
+    private volatile double gcTimeMs;
+    private volatile double gcCountDelta;
+    private volatile double gcTimeDeltaMs;
+    private volatile double lastPauseMs;
+    private volatile double allocationRate;     // MB/s on the loop thread
+    private volatile double heapUsed;           // MB
+
+    /**
+     * @param loopThreadId Thread whose allocations are measured, normally the robot main thread
+     */
+    public JvmTelemetry(long loopThreadId) {
+        this.loopThreadId = loopThreadId;
+        this.notifier = new Notifier(this::sample);
+        this.notifier.setName("JvmTelemetry");
+        dashboard();
+    }
+
+    public void start() {
+        this.notifier.startPeriodic(Constants.Threading.JVM_TELEMETRY_PERIOD);
+    }
+
+    private void sample() {
+        if (!this.priorityConfigured) {
+            ThreadPriorities.configureBackground("JvmTelemetry");
+            this.priorityConfigured = true;
+        }
+
+        long count = 0;
+        long timeMs = 0;
+        long lastStart = -1;
+        double pause = this.lastPauseMs;
+        for (GarbageCollectorMXBean collector : this.collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+            timeMs += Math.max(0, collector.getCollectionTime());
+            if (collector instanceof com.sun.management.GarbageCollectorMXBean) {
+                GcInfo info = ((com.sun.management.GarbageCollectorMXBean) collector).getLastGcInfo();
+                if (info != null && info.getStartTime() > lastStart) {
+                    lastStart = info.getStartTime();
+                    pause = info.getDuration();
+                }
+            }
+        }
+
+        this.gcCountDelta = count - this.lastCount;
+        this.gcTimeDeltaMs = timeMs - this.lastTimeMs;
+        this.gcCount = count;
+        this.gcTimeMs = timeMs;
+        this.lastPauseMs = pause;
+        this.lastCount = count;
+        this.lastTimeMs = timeMs;
+
+        double now = Timer.getFPGATimestamp();
+        long allocated = this.threads.getThreadAllocatedBytes(this.loopThreadId);
+        if (this.lastAllocated >= 0 && allocated >= 0 && now > this.lastSampleTime) {
+            this.allocationRate = (allocated - this.lastAllocated) / (now - this.lastSampleTime) / 1e6;
+        }
+        this.lastAllocated = allocated;
+        this.lastSampleTime = now;
+
+        this.heapUsed = this.memory.getHeapMemoryUsage().getUsed() / 1e6;
+    }
+
+    private void dashboard() {
+        ShuffleboardTab tab = Shuffleboard.getTab("Timing");
+        tab.addNumber("GC Count", () -> this.gcCount);
+        tab.addNumber("GC Time (ms)", () -> this.gcTimeMs);
+        tab.addNumber("GCs Last Sample", () -> this.gcCountDelta);
+        tab.addNumber("GC Time Last Sample (ms)", () -> this.gcTimeDeltaMs);
+        tab.addNumber("Last GC Pause (ms)", () -> this.lastPauseMs);
+        tab.addNumber("Loop Allocation (MB/s)", () -> this.allocationRate);
+        tab.addNumber("Heap Used (MB)", () -> this.heapUsed);
+    }
+}
@@ -0,0 +1,107 @@
+package frc.lib.util;
+
+/**
+ * Period and jitter statistics for a periodic loop. Samples are collected over a window and the
+ * last complete window is published, so the dashboard shows recent behavior rather than a lifetime
+ * average.
+ */
+public class LoopTimingStats {
+
+    private final double nominalPeriod;
+    private final int windowSize;
+
+    /* Window being collected */
+    private double lastTimestamp = Double.NaN;
+    private int count = 0;
+    private double mean = 0.0;
+    private double m2 = 0.0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = 0.0;
+    private double maxJitter = 0.0;
+    private int overruns = 0;
+
+    /* Last complete window */
+    private double publishedMean;
+    private double publishedStdDev;
+    private double publishedMin;
+    private double publishedMax;
+    private double publishedMaxJitter;
+    private int publishedOverruns;
+
+    /**
+     * @param nominalPeriod Expected loop period in seconds
+     * @param windowSize Loops per published window
+     */
+    public LoopTimingStats(double nominalPeriod, int windowSize) {
+        this.nominalPeriod = nominalPeriod;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * @param timestamp Time at the start of this loop, in seconds
+     */
+    public void record(double timestamp) {
+        if (!Double.isNaN(lastTimestamp)) {
+            double period = timestamp - lastTimestamp;
+
+            // Welford's running mean and variance
+            count++;
+            double delta = period - mean;
+            mean += delta / count;
+            m2 += delta * (period - mean);
+
+            min = Math.min(min, period);
+            max = Math.max(max, period);
+            maxJitter = Math.max(maxJitter, Math.abs(period - nominalPeriod));
+            if (period > nominalPeriod * 1.5) {
+                overruns++;
+            }
+
+            if (count == windowSize) {
+                publish();
+            }
+        }
+        lastTimestamp = timestamp;
+    }
+
+    private void publish() {
+        publishedMean = mean;
+        publishedStdDev = Math.sqrt(m2 / Math.max(1, count - 1));
+        publishedMin = min;
+        publishedMax = max;
+        publishedMaxJitter = maxJitter;
+        publishedOverruns = overruns;
+
+        count = 0;
+        mean = 0.0;
+        m2 = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = 0.0;
+        maxJitter = 0.0;
+        overruns = 0;
+    }
+
+    public double getMeanPeriod() {
+        return publishedMean;
+    }
+
+    public double getStdDevPeriod() {
+        return publishedStdDev;
+    }
+
+    public double getMinPeriod() {
+        return publishedMin;
+    }
+
+    public double getMaxPeriod() {
+        return publishedMax;
+    }
+
+    public double getMaxJitter() {
+        return publishedMaxJitter;
+    }
+
+    public int getOverruns() {
+        return publishedOverruns;
+    }
+}
@@ -0,0 +1,78 @@
+package frc.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+
+/**
+ * Every {@link BufferedMotorOutput}, flushed together once the command scheduler has run so all
+ * motor requests leave at the same point in the loop.
+ */
+public final class OutputBuffer {
+
+    private static final List<BufferedMotorOutput> outputs = new ArrayList<>();
+
+    /* Totals over every output, refreshed on each flush for the dashboard */
+    private static volatile long forwardedWrites = 0;
+    private static volatile long suppressedWrites = 0;
+    private static volatile long refreshWrites = 0;
+
+    private OutputBuffer() {}
+
+    static synchronized void register(BufferedMotorOutput output) {
+        outputs.add(output);
+    }
+
+    /**
+     * Send every pending motor request. Call once per loop from the robot thread after the
+     * command scheduler.
+     */
+    public static void flushAll() {
+        double now = Timer.getFPGATimestamp();
+        long forwarded = 0;
+        long suppressed = 0;
+        long refreshed = 0;
+        for (int i = 0; i < outputs.size(); i++) {
+            BufferedMotorOutput output = outputs.get(i);
+            output.flush(now);
+            forwarded += output.getForwardedWrites();
+            suppressed += output.getSuppressedWrites();
+            refreshed += output.getRefreshWrites();
+        }
+        forwardedWrites = forwarded;
+        suppressedWrites = suppressed;
+        refreshWrites = refreshed;
+    }
+
+    public static long getForwardedWrites() {
+        return forwardedWrites;
+    }
+
+    public static long getSuppressedWrites() {
+        return suppressedWrites;
+    }
+
+    public static long getRefreshWrites() {
+        return refreshWrites;
+    }
+
+    /**
+     * @return Percentage of requested motor writes that never had to cross to the motor
+     */
+    public static double getSuppressedPercent() {
+        long suppressed = suppressedWrites;
+        long total = suppressed + forwardedWrites + refreshWrites;
+        return (total == 0) ? 0.0 : 100.0 * suppressed / total;
+    }
+
+    public static void dashboard() {
+        ShuffleboardTab tab = Shuffleboard.getTab("Timing");
+        tab.addNumber("Motor Writes Sent", () -> getForwardedWrites() + getRefreshWrites());
+        tab.addNumber("Motor Writes Suppressed", OutputBuffer::getSuppressedWrites);
+        tab.addNumber("Motor Writes Refreshed", OutputBuffer::getRefreshWrites);
+        tab.addNumber("Motor Writes Suppressed (%)", OutputBuffer::getSuppressedPercent);
+    }
+}
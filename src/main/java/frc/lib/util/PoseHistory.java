@@ -0,0 +1,194 @@
+package frc.lib.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Fixed size history of timestamped robot poses, velocities and gyro yaw, for asking where the
+ * robot was at some earlier FPGA time. Samples are kept in primitive ring buffers and lookups
+ * binary search them and interpolate between the two neighbouring samples.
+ *
+ * <p>One thread records, any number of threads may read. Readers never take a lock: they copy the
+ * sample under an optimistic {@link StampedLock} stamp and retry if a record happened meanwhile,
+ * so a slow reader can never hold up the robot loop.
+ */
+public class PoseHistory {
+
+    /** One interpolated sample. Reused by callers so lookups do not allocate. */
+    public static final class Sample {
+        public double timestamp;    // seconds, FPGA time
+        public double x;            // meters
+        public double y;            // meters
+        public double heading;      // radians, odometry heading
+        public double vx;           // meters per second, field relative
+        public double vy;           // meters per second, field relative
+        public double omega;        // radians per second
+        public double yaw;          // radians, continuous gyro yaw
+
+        public Pose2d toPose() {
+            return new Pose2d(x, y, new Rotation2d(heading));
+        }
+    }
+
+    private final int capacity;
+    private final double[] time;
+    private final double[] x;
+    private final double[] y;
+    private final double[] heading;
+    private final double[] vx;
+    private final double[] vy;
+    private final double[] omega;
+    private final double[] yaw;
+
+    private final StampedLock lock = new StampedLock();
+    private int newest = -1;    // slot of the newest sample
+    private int count = 0;
+
+    public PoseHistory(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Pose history needs room for at least two samples, got " + capacity);
+        }
+        this.capacity = capacity;
+        this.time = new double[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.heading = new double[capacity];
+        this.vx = new double[capacity];
+        this.vy = new double[capacity];
+        this.omega = new double[capacity];
+        this.yaw = new double[capacity];
+    }
+
+    /**
+     * Add a sample. Only ever called from one thread, with increasing timestamps. A timestamp that
+     * does not increase replaces the newest sample.
+     */
+    public void record(double timestamp, Pose2d pose, double vx, double vy, double omega, double yaw) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = newest;
+            if (count == 0 || timestamp > time[newest]) {
+                slot = (newest + 1) % capacity;
+                newest = slot;
+                count = Math.min(count + 1, capacity);
+            }
+            this.time[slot] = timestamp;
+            this.x[slot] = pose.getX();
+            this.y[slot] = pose.getY();
+            this.heading[slot] = pose.getRotation().getRadians();
+            this.vx[slot] = vx;
+            this.vy[slot] = vy;
+            this.omega[slot] = omega;
+            this.yaw[slot] = yaw;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Forget every sample, for when the pose is reset and the old samples no longer line up.
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            count = 0;
+            newest = -1;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Interpolate the robot state at a time. Times after the newest sample get the newest sample.
+     *
+     * @param timestamp FPGA time in seconds
+     * @param out Filled with the result
+     * @return False, leaving out untouched, if the time is older than the history or it is empty
+     */
+    public boolean sample(double timestamp, Sample out) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0L) {
+                Thread.onSpinWait();    // a record is in progress, it only takes a few microseconds
+                continue;
+            }
+            boolean found = read(timestamp, out);
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+    }
+
+    /**
+     * @return The interpolated pose at an FPGA time, or null if the history does not reach back that far
+     */
+    public Pose2d getPose(double timestamp) {
+        Sample sample = new Sample();
+        return sample(timestamp, sample) ? sample.toPose() : null;
+    }
+
+    /**
+     * @param out Filled with the newest sample
+     * @return False if the history is empty
+     */
+    public boolean latest(Sample out) {
+        return sample(Double.POSITIVE_INFINITY, out);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Copy out an interpolated sample. Runs without the lock, so every index stays inside the
+     * arrays even if a record tears the fields it reads; validate() throws such a result away.
+     */
+    private boolean read(double timestamp, Sample out) {
+        int n = Math.min(count, capacity);
+        int last = newest;
+        if (n == 0 || last < 0) {
+            return false;
+        }
+        int oldest = Math.floorMod(last - n + 1, capacity);
+        if (timestamp < time[oldest]) {
+            return false;
+        }
+        if (timestamp >= time[last]) {
+            copy(last, last, 0.0, out);
+            return true;
+        }
+
+        // Newest sample at or before the timestamp, searching in age order from the oldest
+        int low = 0;
+        int high = n - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (time[(oldest + mid) % capacity] <= timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int before = (oldest + low) % capacity;
+        int after = (oldest + Math.min(low + 1, n - 1)) % capacity;
+        double span = time[after] - time[before];
+        double t = (span > 0.0) ? MathUtil.clamp((timestamp - time[before]) / span, 0.0, 1.0) : 0.0;
+        copy(before, after, t, out);
+        out.timestamp = timestamp;
+        return true;
+    }
+
+    private void copy(int a, int b, double t, Sample out) {
+        out.timestamp = time[b];
+        out.x = MathUtil.interpolate(x[a], x[b], t);
+        out.y = MathUtil.interpolate(y[a], y[b], t);
+        out.heading = heading[a] + MathUtil.angleModulus(heading[b] - heading[a]) * t;
+        out.vx = MathUtil.interpolate(vx[a], vx[b], t);
+        out.vy = MathUtil.interpolate(vy[a], vy[b], t);
+        out.omega = MathUtil.interpolate(omega[a], omega[b], t);
+        out.yaw = MathUtil.interpolate(yaw[a], yaw[b], t);
+    }
+}
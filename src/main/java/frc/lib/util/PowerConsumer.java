@@ -0,0 +1,26 @@
+package frc.lib.util;
+
+/**
+ * A mechanism whose supply current can be measured and limited at runtime. Implemented by
+ * subsystems that register with the {@link frc.robot.subsystems.PowerBudgeter}.
+ */
+public interface PowerConsumer {
+
+    /**
+     * @return Total supply (battery side) current of the mechanism in amps
+     */
+    double getSupplyCurrent();
+
+    /**
+     * @return Total stator (motor side) current of the mechanism in amps
+     */
+    double getStatorCurrent();
+
+    /**
+     * Apply a new supply current limit. Implementations should push it straight to the motor
+     * controllers, rate limiting is handled by the caller.
+     *
+     * @param amps Total supply current the mechanism may draw
+     */
+    void setSupplyCurrentBudget(double amps);
+}
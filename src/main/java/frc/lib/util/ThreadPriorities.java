@@ -0,0 +1,78 @@
+package frc.lib.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+import frc.robot.Constants;
+
+/**
+ * Scheduling priorities and CPU pinning for our threads. The main loop gets one of the roboRIO's
+ * two cores and background threads are kept on the other. Only applied on the roboRIO, in
+ * simulation every call is a no-op so desktop runs behave like any other Java program.
+ */
+public final class ThreadPriorities {
+
+    private ThreadPriorities() {}
+
+    /**
+     * Set the scheduling priority of the calling thread.
+     *
+     * @param realTime True for the real-time FIFO scheduler, false for the normal time sharing one
+     * @param priority Real-time priority (1-99), ignored when not real-time
+     * @param name Used in the warning if the priority can't be set
+     */
+    public static void configureCurrentThread(boolean realTime, int priority, String name) {
+        if (!Constants.Threading.ENABLED || !RobotBase.isReal()) {
+            return;
+        }
+        if (!Threads.setCurrentThreadPriority(realTime, priority)) {
+            DriverStation.reportWarning("Unable to set " + name + " thread priority", false);
+        }
+    }
+
+    /**
+     * Pin the calling thread to one CPU. Java has no affinity call, so this runs taskset on the
+     * thread's Linux thread id.
+     *
+     * @param name Used in the warning if the thread can't be pinned
+     */
+    public static void pinCurrentThread(int cpu, String name) {
+        if (!Constants.Threading.ENABLED || !RobotBase.isReal()) {
+            return;
+        }
+        try {
+            // Links to <pid>/task/<tid> of the calling thread
+            String tid = Files.readSymbolicLink(Paths.get("/proc/thread-self")).getFileName().toString();
+            Process taskset = new ProcessBuilder("taskset", "-p", "-c", Integer.toString(cpu), tid)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            if (taskset.waitFor() != 0) {
+                DriverStation.reportWarning("Unable to pin " + name + " thread to CPU " + cpu + ", taskset exited with " + taskset.exitValue(), false);
+            }
+        } catch (IOException e) {
+            DriverStation.reportWarning("Unable to pin " + name + " thread to CPU " + cpu + ": " + e.getMessage(), false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void configureMainLoop() {
+        configureCurrentThread(true, Constants.Threading.MAIN_LOOP_PRIORITY, "main loop");
+        pinCurrentThread(Constants.Threading.MAIN_LOOP_CPU, "main loop");
+    }
+
+    /**
+     * Background work runs on the normal scheduler, below every real-time thread, and off the main
+     * loop's core.
+     */
+    public static void configureBackground(String name) {
+        configureCurrentThread(false, 0, name);
+        pinCurrentThread(Constants.Threading.BACKGROUND_CPU, name);
+        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+    }
+}
@@ -0,0 +1,58 @@
+package frc.lib.util;
+
+import java.util.EnumSet;
+
+import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * A gain that can be changed from the dashboard without redeploying. The value is updated by a
+ * NetworkTables listener, so reading it never touches NetworkTables from the robot loop. Use
+ * {@link TunableRegistry#getVersion()} to find out cheaply whether anything changed.
+ */
+public class TunableNumber {
+
+    private final String key;
+    private final double defaultValue;
+    private final DoubleEntry entry;
+    private volatile double value;
+
+    /**
+     * @param key Name under the Tuning table, also used as the key in the saved file
+     * @param defaultValue Value used when nothing has been saved for this key
+     */
+    public TunableNumber(String key, double defaultValue) {
+        this.key = key;
+        this.defaultValue = defaultValue;
+        this.value = TunableRegistry.register(this);
+
+        this.entry = TunableRegistry.getTable().getDoubleTopic(key).getEntry(this.value);
+        this.entry.set(this.value);
+
+        NetworkTableInstance.getDefault().addListener(
+            this.entry,
+            EnumSet.of(NetworkTableEvent.Kind.kValueRemote),
+            event -> set(event.valueData.value.getDouble())
+        );
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public double getDefault() {
+        return defaultValue;
+    }
+
+    public double get() {
+        return value;
+    }
+
+    private void set(double newValue) {
+        if (newValue != value) {
+            value = newValue;
+            TunableRegistry.markChanged();
+        }
+    }
+}
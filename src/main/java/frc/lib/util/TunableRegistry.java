@@ -0,0 +1,63 @@
+package frc.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Keeps track of every {@link TunableNumber}. Values saved with {@link #save()} are loaded back
+ * from the deploy directory when each number is created.
+ */
+public final class TunableRegistry {
+
+    public static final String TABLE = "Tuning";
+    public static final String FILE = "tuning/gains";
+
+    private static final AtomicInteger version = new AtomicInteger();
+    private static final List<TunableNumber> numbers = new ArrayList<>();
+    private static Properties saved;
+
+    private TunableRegistry() {}
+
+    static NetworkTable getTable() {
+        return NetworkTableInstance.getDefault().getTable(TABLE);
+    }
+
+    /**
+     * @return The value the number should start with
+     */
+    static synchronized double register(TunableNumber number) {
+        if (saved == null) {
+            saved = DeployProperties.load(FILE);
+        }
+        numbers.add(number);
+        return DeployProperties.getDouble(saved, number.getKey(), number.getDefault());
+    }
+
+    static void markChanged() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Bumped every time any tunable changes. Consumers keep the last version they applied and
+     * only re-read their gains when it differs.
+     */
+    public static int getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Write the current value of every tunable to the deploy directory.
+     */
+    public static synchronized boolean save() {
+        Properties properties = new Properties();
+        for (TunableNumber number : numbers) {
+            properties.setProperty(number.getKey(), Double.toString(number.get()));
+        }
+        return DeployProperties.save(FILE, properties, "Tuned gains");
+    }
+}
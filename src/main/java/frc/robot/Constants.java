@@ -6,12 +6,12 @@ package frc.robot;
 
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 
-import edu.wpi.first.math.controller.PIDController;
-import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.robot.config.PidGains;
 import frc.robot.utils.swerve.SwerveModuleConstants;
 
 public final class Constants {
@@ -33,12 +33,12 @@ public final class Constants {
         public static final double DRIVE_GEAR_RATIO = (6.0 / 1.0);  // 6.86:1
         public static final double ANGLE_GEAR_RATIO = (12.0 / 1.0); // 12.8:1
 
-        public static final SwerveDriveKinematics SWERVE_KINEMATICS = new SwerveDriveKinematics(
+        public static final Translation2d[] MODULE_TRANSLATIONS = {
             new Translation2d(  WHEEL_BASE / 2.0,   TRACK_WIDTH / 2.0),
             new Translation2d(  WHEEL_BASE / 2.0,  -TRACK_WIDTH / 2.0),
             new Translation2d( -WHEEL_BASE / 2.0,   TRACK_WIDTH / 2.0),
             new Translation2d( -WHEEL_BASE / 2.0,  -TRACK_WIDTH / 2.0)
-        );
+        };
 
         /* Current Limiting */
         public static final int ANGLE_CONTINUOUS_CL = 25;
@@ -57,6 +57,13 @@ public final class Constants {
         public static final double ANGLE_kD = 12.0;   // 12.0
         public static final double ANGLE_kF = 0.0;   // 0.0
 
+        /* Angle Motor Motion Magic, for modules with MOTION_MAGIC_STEERING set. The Falcon profiles each target at 1 kHz */
+        public static final int ANGLE_MOTION_MAGIC_SLOT         = 1;        // slot 0 stays plain position, kF there would scale the target
+        public static final double ANGLE_MOTION_MAGIC_CRUISE    = 1800.0;   // deg/s at the module
+        public static final double ANGLE_MOTION_MAGIC_ACCEL     = 24000.0;  // deg/s^2 at the module
+        public static final int ANGLE_MOTION_MAGIC_SMOOTHING    = 0;        // S-curve strength, 0 (trapezoid) to 8
+        public static final double ANGLE_MOTION_MAGIC_kF        = 0.047;    // 1023 / Falcon free speed in counts per 100ms
+
         /* Drive Motor PID Values */
         public static final double DRIVE_kP = 0.10;  // 0.10
         public static final double DRIVE_kI = 0.0;   // 0.0
@@ -64,9 +71,10 @@ public final class Constants {
         public static final double DRIVE_kF = 0.0;   // 0.0
 
         /* Drive Motor Characterization Values (FeedForward) */
-        public static final double FF_kS    = (0.632 / 12);     // 0.667 --- divide by 12 to convert from volts to percent output for CTRE
-        public static final double FF_kV    = (0.0514 / 12);    // 2.44
-        public static final double FF_kA    = (0.00337 / 12);   // 0.27
+        /* Volts, used when deploy/characterization/drive.properties is missing. SwerveModule converts to percent output for CTRE */
+        public static final double FF_kS    = 0.632;    // V
+        public static final double FF_kV    = 0.0514;   // V / (m/s)
+        public static final double FF_kA    = 0.00337;  // V / (m/s^2)
 
         /* Swerve Profiling Values */
         public static final double MAX_SPEED            = 4.5;  // m/s
@@ -83,6 +91,28 @@ public final class Constants {
         /* Angle Encoder Invert */
         public static final boolean CAN_CODER_INVERTED = false;
 
+        /* Module Health Monitor */
+        public static final double HEALTH_CHECK_PERIOD              = 0.25;   // seconds
+        public static final int HEALTH_STALE_CHECKS                 = 4;      // checks without a new CANCoder frame
+        public static final double HEALTH_STATIONARY_DRIVE_VELOCITY = 0.05;   // m/s
+        public static final double HEALTH_STATIONARY_ANGLE_VELOCITY = 5.0;    // deg/s
+        public static final double HEALTH_DRIFT_WARNING             = 1.0;    // degrees
+        public static final double HEALTH_RESYNC_THRESHOLD          = 3.0;    // degrees
+
+        /* Slip and Collision Detection */
+        public static final double SLIP_RESIDUAL_MIN        = 0.25;   // m/s a module may disagree with the rigid body fit
+        public static final double SLIP_RESIDUAL_FRACTION   = 0.15;   // extra allowed disagreement per m/s of robot speed
+        public static final double SLIP_GYRO_WEIGHT         = 1.0;    // m^2, about three times all four modules together on rotation
+        public static final int SLIP_ITERATIONS             = 3;      // reweighting passes per loop
+        public static final double COLLISION_ACCEL          = 12.0;   // m/s^2 the wheels cannot explain
+        public static final int COLLISION_HOLD_LOOPS        = 15;     // loops a collision stays flagged
+
+        /* Heading */
+        public static final double HEADING_LOOKAHEAD = 0.015;   // seconds from the gyro sample to the middle of the loop the modules act on it
+
+        /* Pose History */
+        public static final int POSE_HISTORY_SIZE   = 75;     // samples, 1.5 s of robot loops
+
         /* Module Specific Constants */
         /* Front Left Module - Module 0 */
         public static final class Mod0 {
@@ -90,8 +120,9 @@ public final class Constants {
             public static final int ANGLE_MOTOR_ID  = 11;
             public static final int CAN_CODER_ID    = 10;
             public static final double ANGLE_OFFSET = 60.0;
+            public static final boolean MOTION_MAGIC_STEERING = false;
             public static final SwerveModuleConstants constants = 
-                new SwerveModuleConstants(DRIVE_MOTOR_ID, ANGLE_MOTOR_ID, CAN_CODER_ID, ANGLE_OFFSET);
+                new SwerveModuleConstants(DRIVE_MOTOR_ID, ANGLE_MOTOR_ID, CAN_CODER_ID, ANGLE_OFFSET, MOTION_MAGIC_STEERING);
         }
 
         /* Front Right Module - Module 1 */
@@ -100,8 +131,9 @@ public final class Constants {
             public static final int ANGLE_MOTOR_ID  = 21;
             public static final int CAN_CODER_ID    = 20;
             public static final double ANGLE_OFFSET = 138.3;
+            public static final boolean MOTION_MAGIC_STEERING = false;
             public static final SwerveModuleConstants constants = 
-                new SwerveModuleConstants(DRIVE_MOTOR_ID, ANGLE_MOTOR_ID, CAN_CODER_ID, ANGLE_OFFSET);
+                new SwerveModuleConstants(DRIVE_MOTOR_ID, ANGLE_MOTOR_ID, CAN_CODER_ID, ANGLE_OFFSET, MOTION_MAGIC_STEERING);
         }
         
         /* Back Left Module - Module 2 */
@@ -110,8 +142,9 @@ public final class Constants {
             public static final int ANGLE_MOTOR_ID  = 31;
             public static final int CAN_CODER_ID    = 30;
             public static final double ANGLE_OFFSET = 214.5;
+            public static final boolean MOTION_MAGIC_STEERING = false;
             public static final SwerveModuleConstants constants = 
-                new SwerveModuleConstants(DRIVE_MOTOR_ID, ANGLE_MOTOR_ID, CAN_CODER_ID, ANGLE_OFFSET);
+                new SwerveModuleConstants(DRIVE_MOTOR_ID, ANGLE_MOTOR_ID, CAN_CODER_ID, ANGLE_OFFSET, MOTION_MAGIC_STEERING);
         }
 
         /* Back Right Module - Module 3 */
@@ -120,32 +153,246 @@ public final class Constants {
             public static final int ANGLE_MOTOR_ID  = 41;
             public static final int CAN_CODER_ID    = 40;
             public static final double ANGLE_OFFSET = 88.0;
+            public static final boolean MOTION_MAGIC_STEERING = false;
             public static final SwerveModuleConstants constants = 
-                new SwerveModuleConstants(DRIVE_MOTOR_ID, ANGLE_MOTOR_ID, CAN_CODER_ID, ANGLE_OFFSET);
+                new SwerveModuleConstants(DRIVE_MOTOR_ID, ANGLE_MOTOR_ID, CAN_CODER_ID, ANGLE_OFFSET, MOTION_MAGIC_STEERING);
         }
     }
 
     public static final class Shooter {
         public static final int SHOOTER_ID = 13;
+        public static final boolean INVERTED = false;   // counter clockwise positive
+
+        /* Velocity PID Values */
+        public static final double kP = 0.2;
+        public static final double kI = 0.0;
+        public static final double kD = 0.0;
+        public static final double kF = 0.05;
+
+        /* Current Limiting */
+        public static final int CONTINUOUS_CL       = 40;
+        public static final int PEAK_CL             = 60;
+        public static final double PEAK_CURRENT_DURATION = 0.1;
+        public static final boolean ENABLE_CURRENT_LIMIT = true;
+    }
+
+    public static final class Pathfinding {
+        public static final double MAX_SPEED_MPS            = 3.0;    // meters per second
+        public static final double MAX_ACCELERATION_MPSS    = 3.0;    // meters per second squared
+
+        public static final double MIN_HEADING_SPEED        = 0.2;    // m/s, below this paths start towards the target
+        public static final double GENERATION_TIMEOUT       = 0.5;    // seconds
+        public static final int MAX_GENERATION_ATTEMPTS     = 3;      // failed or timed out in a row before giving up
+
+        /* Regenerate when the target moves further than this */
+        public static final double REPLAN_TRANSLATION_TOLERANCE = 0.15;   // meters
+        public static final double REPLAN_ROTATION_TOLERANCE    = 10.0;   // degrees
+
+        /* Done once the trajectory has run out and the robot is this close */
+        public static final double GOAL_TRANSLATION_TOLERANCE   = 0.05;   // meters
+        public static final double GOAL_ROTATION_TOLERANCE      = 3.0;    // degrees
+        public static final double GOAL_TIMEOUT                 = 1.0;    // seconds past the end of the trajectory before giving up
+
+        /* Held on the driver controller to drive to the scoring station, blue alliance field coordinates */
+        public static final Pose2d SCORING_POSE = new Pose2d(1.85, 2.75, Rotation2d.fromDegrees(180.0));
+
+        /* Trajectory cache */
+        public static final int CACHE_CAPACITY                  = 32;
+        public static final double CACHE_TRANSLATION_RESOLUTION = 0.1;    // meters
+        public static final double CACHE_ROTATION_RESOLUTION    = 10.0;   // degrees
+        public static final double CACHE_SPEED_RESOLUTION       = 0.5;    // m/s
+    }
+
+    public static final class Navigation {
+        public static final double FIELD_LENGTH     = 16.54;  // meters
+        public static final double FIELD_WIDTH      = 8.02;   // meters
+        public static final double ROBOT_RADIUS     = 0.45;   // meters, obstacles in the grid are inflated by this
+
+        public static final String GRID_FILE        = "nav/field";
+        public static final double GRID_CELL_SIZE   = 0.1;    // meters, of generated grids and the fallback empty field
+        public static final double CLEARANCE        = 0.3;    // meters past the robot radius that still cost extra near solid obstacles
+        public static final double CLEARANCE_COST   = 50.0;   // cell cost right at the robot radius, falling to 0 over the clearance
+        public static final double COST_SCALE       = 100.0;  // cell cost that doubles the cost of crossing it
+        public static final int MAX_EXPANSIONS      = 20000;  // bounds worst case search time
+    }
+
+    public static final class ControlLoop {
+        public static final boolean BUFFER_OUTPUTS = true;    // false sends motor requests as soon as they are set
+
+        /* Requests closer than this to the last one sent are not forwarded to the motor */
+        public static final double PERCENT_OUTPUT_EPSILON = 1e-3;   // duty cycle
+        public static final double SENSOR_UNITS_EPSILON   = 1.0;    // Falcon counts or counts per 100 ms
+        public static final double FEEDFORWARD_EPSILON    = 1e-3;   // arbitrary feedforward, duty cycle
+        public static final double OUTPUT_REFRESH_PERIOD  = 0.25;   // seconds before the last request is re-sent regardless
+    }
+
+    public static final class Threading {
+        public static final boolean ENABLED         = true;   // only ever applied on the roboRIO
+        public static final int MAIN_LOOP_PRIORITY  = 15;     // real-time, above NetworkTables and the GC
+        public static final int MAIN_LOOP_CPU       = 1;      // the roboRIO has CPUs 0 and 1
+        public static final int BACKGROUND_CPU      = 0;      // async workers, notifiers and telemetry
+        public static final int LOOP_STATS_WINDOW   = 250;    // loops per published timing window (5 s)
+        public static final double JVM_TELEMETRY_PERIOD = 1.0;  // seconds between GC and allocation samples
+    }
+
+    public static final class Async {
+        public static final int WORKER_THREADS      = 1;      // the roboRIO only has two cores, leave one for the robot loop
+        public static final int QUEUE_CAPACITY      = 16;
+        public static final double DEFAULT_TIMEOUT  = 5.0;    // seconds
+    }
+
+    public static final class Config {
+        public static final String DIRECTORY    = "config";             // deploy directory holding <robot>.json
+        public static final String ROBOTS       = "config/robots";      // roboRIO serial number to robot name
+        public static final String DEFAULT_ROBOT = "comp";              // used for serials not listed
+    }
+
+    public static final class Calibration {
+        public static final String CONFIG = "calibration/swerve";   // deploy file SwerveModule loads at boot
+
+        /* Wheel diameter, spinning in place */
+        public static final double WHEEL_SPIN_SPEED         = 1.5;              // rad/s
+        public static final double WHEEL_SPIN_RAMP          = 1.0;              // rad/s^2
+        public static final double WHEEL_TARGET_ROTATION    = 4.0 * Math.PI;    // radians measured before finishing
+        public static final double WHEEL_MIN_ROTATION       = 2.0 * Math.PI;    // radians needed to save if cancelled early
+        public static final double WHEEL_MAX_CHANGE         = 0.15;             // fraction from nominal still accepted
+
+        /* Steering offsets */
+        public static final int OFFSET_SAMPLES = 50;     // loops of CANCoder readings averaged (1 s)
+    }
+
+    public static final class SelfTest {
+        /* Steering sweep, out and back, then a drive pulse once wheels up is confirmed. A shooter, if the test has one, spins up alongside */
+        public static final double STEER_STEP       = 90.0;   // degrees
+        public static final double STEER_STEP_TIME  = 0.6;    // seconds per direction
+        public static final double DRIVE_VOLTS      = 3.0;
+        public static final double DRIVE_TIME       = 1.0;    // seconds
+        public static final double SHOOTER_VOLTS    = 4.0;
+        public static final double SHOOTER_TIME     = 2.0;    // seconds
+
+        /* Models the expected response is simulated with, wheels up on blocks */
+        public static final double DRIVE_INERTIA    = 0.001;  // kg m^2 at the wheel, including the reflected rotor
+        public static final double SHOOTER_INERTIA  = 0.004;  // kg m^2 of the flywheel
+
+        /* Pass limits */
+        public static final double STEER_TOLERANCE  = Simulation.STEER_SETTLE_TOLERANCE;  // degrees
+        public static final double SPEED_TOLERANCE  = 0.2;    // fraction of the simulated speed
+        public static final double RESPONSE_MARGIN  = 1.5;    // times the simulated settle time
+        public static final double RESPONSE_SLACK   = 0.1;    // seconds on top, for CAN and loop latency
+        public static final double CURRENT_SLACK    = 5.0;    // amps above the simulated steady current
+        public static final double STEADY_WINDOW    = 0.2;    // seconds at the end of each step that are averaged
+    }
+
+    public static final class Characterization {
+        public static final double QUASISTATIC_RAMP_RATE    = 0.25;   // volts per second
+        public static final double QUASISTATIC_DURATION     = 20.0;   // seconds
+        public static final double DYNAMIC_STEP_VOLTAGE     = 6.0;    // volts
+        public static final double DYNAMIC_DURATION         = 3.0;    // seconds
+
+        /* Samples per mechanism, all four runs at 50 Hz with a quarter to spare. Reset clears the log between attempts */
+        public static final double BUFFER_MARGIN = 1.25;
+        public static final int BUFFER_SIZE = (int) Math.ceil(
+            (2.0 * QUASISTATIC_DURATION + 2.0 * DYNAMIC_DURATION) / TimedRobot.kDefaultPeriod * BUFFER_MARGIN);
+
+        /* Deploy files the fits are written to */
+        public static final String DRIVE_CONFIG     = "characterization/drive";
+        public static final String STEER_CONFIG     = "characterization/steer";
+        public static final String SHOOTER_CONFIG   = "characterization/shooter";
+
+        /* Samples slower than these are left out of the fit */
+        public static final double DRIVE_MIN_VELOCITY   = 0.05;   // m/s
+        public static final double STEER_MIN_VELOCITY   = 5.0;    // deg/s
+        public static final double SHOOTER_MIN_VELOCITY = 50.0;   // RPM
+    }
+
+    public static final class Simulation {
+        public static final double LOOP_PERIOD          = 0.02;           // seconds, matches TimedRobot
+        public static final double MODULE_STEER_RATE    = 4.0 * Math.PI;  // radians per second
+        public static final double MODULE_ACCELERATION  = 8.0;            // meters per second squared
+
+        /* Steering comparison, see SteeringSim */
+        public static final double STEER_INERTIA            = 0.004;  // kg m^2 of a module about its steering axis
+        public static final double STEER_SETTLE_TOLERANCE   = 1.0;    // degrees
+        public static final double STEER_DURATION           = 1.0;    // seconds simulated per step
+        public static final double STEER_TRACKING_AMPLITUDE = 60.0;   // degrees of the swept tracking target
+        public static final double STEER_TRACKING_FREQUENCY = 1.0;    // Hz of the swept tracking target
+
+        /* Monte Carlo gain tuner, see GainTuner. Ranges are {min, max} */
+        public static final int TUNER_CANDIDATES            = 256;    // random gain sets in the first round
+        public static final int TUNER_REFINE_CANDIDATES     = 128;    // perturbed gain sets around the best of the first round
+        public static final int TUNER_REFINE_PARENTS        = 8;
+        public static final double TUNER_REFINE_SPREAD      = 0.2;    // fraction each gain may move when refining
+        public static final int TUNER_TRIALS                = 8;      // randomized runs of every path per gain set
+        public static final double[] TUNER_TRANSLATION_KP   = {1.0, 12.0};
+        public static final double[] TUNER_TRANSLATION_KD   = {0.0, 0.5};
+        public static final double[] TUNER_THETA_KP         = {1.0, 15.0};
+        public static final double[] TUNER_THETA_KD         = {0.0, 0.5};
+        public static final double[] TUNER_ANGLE_KP         = {0.1, 1.0};
+        public static final double[] TUNER_ANGLE_KD         = {0.0, 20.0};
+        public static final double TUNER_POSE_NOISE         = 0.02;   // meters standard deviation of the measured pose
+        public static final double TUNER_HEADING_NOISE      = 0.01;   // radians standard deviation of the measured heading
+        public static final int TUNER_MAX_LATENCY_LOOPS     = 2;      // loops the controller may see the pose late
+        public static final double TUNER_SLIP_PROBABILITY   = 0.02;   // chance per module per loop of losing traction
+        public static final double TUNER_SLIP_TRACTION      = 0.5;    // lowest traction of a slipping wheel
+        public static final double TUNER_FINISH_TOLERANCE   = 0.05;   // meters from the path end that counts as arrived
+        public static final double TUNER_FINISH_TIMEOUT     = 1.0;    // seconds allowed past the path end
+        public static final double TUNER_MAX_ERROR_WEIGHT   = 0.5;    // cost of max error relative to RMS error
+        public static final double TUNER_TIME_WEIGHT        = 0.1;    // cost per second spent past the path end, in meters
+
+        /* Multi robot scenarios, see ScenarioSim */
+        public static final double FIELD_LENGTH         = 16.54;  // meters
+        public static final double FIELD_WIDTH          = 8.02;   // meters
+        public static final double ROBOT_RADIUS         = 0.42;   // meters, bumpers taken as a circle
+        public static final double SCENARIO_DURATION    = 10.0;   // seconds, when the scenario does not say
+        public static final double SCENARIO_SHOT_SPEED  = 10.0;   // meters per second of a ball leaving the shooter
+
+        /* Auto benchmark regression limits */
+        public static final double AUTO_PERIOD          = 15.0;   // seconds, a routine still running after this fails
+        public static final double AUTO_TIME_TOLERANCE  = 0.1;    // seconds
+        public static final double AUTO_ERROR_TOLERANCE = 0.02;   // meters
+        public static final double AUTO_MEAN_ERROR_TOLERANCE = 0.01;  // meters
+    }
+
+    public static final class Power {
+        public static final double TOTAL_SUPPLY_BUDGET  = 200.0;    // amps shared by every registered mechanism
+        public static final double DEMAND_HEADROOM      = 15.0;     // amps granted above what a mechanism is drawing right now
+
+        public static final double NOMINAL_VOLTAGE          = 12.0;
+        public static final double BROWNOUT_WARN_VOLTAGE    = 9.5;  // budget starts shrinking below this
+        public static final double BROWNOUT_MIN_VOLTAGE     = 7.5;  // budget is at its minimum below this
+        public static final double MIN_BUDGET_SCALE         = 0.5;
+
+        public static final double LIMIT_UPDATE_PERIOD  = 0.25;     // seconds between config writes per mechanism
+        public static final double LIMIT_HYSTERESIS     = 3.0;      // amps
+
+        /* Priorities, lower is served first */
+        public static final int DRIVETRAIN_PRIORITY = 0;
+        public static final int SHOOTER_PRIORITY    = 1;
+
+        public static final double DRIVETRAIN_ANGLE_RESERVE = 20.0; // amps kept for the four angle motors
+        public static final double DRIVETRAIN_MIN_SUPPLY    = DRIVETRAIN_ANGLE_RESERVE + 4 * 20.0;
+        public static final double DRIVETRAIN_MAX_SUPPLY    = DRIVETRAIN_ANGLE_RESERVE + 4 * SwerveDrivetrain.DRIVE_CONTINUOUS_CL;
+
+        public static final double SHOOTER_MIN_SUPPLY = 10.0;
+        public static final double SHOOTER_MAX_SUPPLY = Shooter.CONTINUOUS_CL;
     }
 
     public static final class Auton {
+        public static final String ROUTINE_DIRECTORY    = "autos";
+        public static final String DEFAULT_ROUTINE      = "test_1";
+
         public static final double MAX_SPEED_MPS            = 7.0;    // meters per second
         public static final double MAX_ACCELERATION_MPSS    = 5.0;    // meters per second squared
 
         public static final double MAX_ANGULAR_SPEED_RPS    = 2 * Math.PI;      // radians per second
         public static final double MAX_ANGULAR_SPEED_RPSS   = 2 * Math.PI;      // radians per second squared
 
-        // public static final PIDController PX_CONTROLLER = new PIDController(5.25, 1, 0.4);
-        // public static final PIDController PY_CONTROLLER = new PIDController(5.25, 1, 0.4);
-        public static final PIDController PX_CONTROLLER = new PIDController(6.0, 0, 0.1);
-        public static final PIDController PY_CONTROLLER = new PIDController(6.0, 0, 0.1);
-        // public static final double PTHETA_CONTROLLER    = 1.0;
-
-        public static final TrapezoidProfile.Constraints THETA_CONTROLLER_CONTRAINTS = new TrapezoidProfile.Constraints(MAX_ANGULAR_SPEED_RPS, MAX_ANGULAR_SPEED_RPSS);
-
-        // public static final ProfiledPIDController ROT_PID_CONTROLLER = new ProfiledPIDController(.13, 0, .39, THETA_CONTROLLER_CONTRAINTS);
-        public static final ProfiledPIDController THETA_CONTROLLER = new ProfiledPIDController(10.0, 0.0, 0.0, THETA_CONTROLLER_CONTRAINTS);
+        /* Gains only, every consumer creates its own controller */
+        // public static final PidGains PX_GAINS = new PidGains(5.25, 1, 0.4);
+        // public static final PidGains PY_GAINS = new PidGains(5.25, 1, 0.4);
+        public static final PidGains PX_GAINS    = new PidGains(6.0, 0, 0.1);
+        public static final PidGains PY_GAINS    = new PidGains(6.0, 0, 0.1);
+        public static final PidGains THETA_GAINS = new PidGains(10.0, 0.0, 0.0);
     }
 
 }
@@ -5,9 +5,18 @@
 package frc.robot;
 
 import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.lib.util.AsyncWorker;
 import frc.lib.util.CTREConfigs;
+import frc.lib.util.JvmTelemetry;
+import frc.lib.util.LoopTimingStats;
+import frc.lib.util.OutputBuffer;
+import frc.lib.util.ThreadPriorities;
+import frc.robot.config.RobotConfig;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -21,14 +30,39 @@ public class Robot extends TimedRobot {
   private RobotContainer m_robotContainer;
   public static CTREConfigs ctreConfigs;
 
+  private JvmTelemetry jvmTelemetry;
+  private double sensorToActuatorLatency;
+  private final LoopTimingStats loopStats = new LoopTimingStats(kDefaultPeriod, Constants.Threading.LOOP_STATS_WINDOW);
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
    */
   @Override
   public void robotInit() {
-    ctreConfigs = new CTREConfigs();
+    ctreConfigs = new CTREConfigs(RobotConfig.getInstance().swerve);
     m_robotContainer = new RobotContainer();
+    loopTimingDashboard();
+
+    // LiveWindow in test mode stops the scheduler, and with it the pit self test
+    enableLiveWindowInTest(false);
+
+    jvmTelemetry = new JvmTelemetry(Thread.currentThread().getId());
+    jvmTelemetry.start();
+
+    // Raise priority and pin the loop to its core only once the slow startup work is done
+    ThreadPriorities.configureMainLoop();
+  }
+
+  private void loopTimingDashboard() {
+    ShuffleboardTab tab = Shuffleboard.getTab("Timing");
+    tab.addNumber("Loop Mean (ms)", () -> loopStats.getMeanPeriod() * 1000.0);
+    tab.addNumber("Loop StdDev (ms)", () -> loopStats.getStdDevPeriod() * 1000.0);
+    tab.addNumber("Loop Max (ms)", () -> loopStats.getMaxPeriod() * 1000.0);
+    tab.addNumber("Loop Max Jitter (ms)", () -> loopStats.getMaxJitter() * 1000.0);
+    tab.addNumber("Loop Overruns", loopStats::getOverruns);
+    tab.addNumber("Sensor To Actuator (ms)", () -> sensorToActuatorLatency * 1000.0);
+    OutputBuffer.dashboard();
   }
 
   /**
@@ -40,11 +74,22 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    double loopStart = Timer.getFPGATimestamp();
+    loopStats.record(loopStart);
+
+    // Read every sensor first so all commands in this loop compute from the same sample
+    m_robotContainer.readSensors();
+    AsyncWorker.getInstance().poll();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
     CommandScheduler.getInstance().run();
+
+    // Send every motor request together at the end of the loop
+    OutputBuffer.flushAll();
+    sensorToActuatorLatency = Timer.getFPGATimestamp() - loopStart;
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -88,6 +133,9 @@ public class Robot extends TimedRobot {
   public void testInit() {
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
+
+    // Entering test mode runs the pit check straight away, the drive pulse only once Wheels Up is confirmed
+    m_robotContainer.getSelfTestCommand().schedule();
   }
 
   /** This function is called periodically during test mode. */
@@ -4,55 +4,94 @@
 
 package frc.robot;
 
-import com.pathplanner.lib.PathPlannerTrajectory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.PS4Controller;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.networktables.GenericEntry;
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
-import edu.wpi.first.wpilibj2.command.button.JoystickButton;
-import frc.robot.commands.drivetrain.RunPathPlannerTrajectory2;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.lib.util.AsyncCommand;
+import frc.lib.util.ControllerSnapshot;
+import frc.lib.util.TunableRegistry;
+import frc.robot.commands.calibration.SteeringOffsetCalibration;
+import frc.robot.commands.calibration.WheelRadiusCalibration;
+import frc.robot.commands.characterization.FeedforwardCharacterization;
+import frc.robot.commands.drivetrain.PathfindToPose;
 import frc.robot.commands.drivetrain.SwerveTeleop;
+import frc.robot.commands.selftest.PitSelfTest;
 import frc.robot.commands.shooter.IdleShooter;
 import frc.robot.commands.shooter.Shoot;
+import frc.robot.subsystems.PowerBudgeter;
 import frc.robot.subsystems.ShooterSubsystem;
 import frc.robot.subsystems.SwerveDrivetrain;
-import frc.robot.utils.TrajectoryHelper;
+import frc.robot.utils.AutoRoutineLoader;
+import frc.robot.utils.characterization.FeedforwardLog;
 
 public class RobotContainer {
 
-  /* Controllers */
-  private final PS4Controller driver = new PS4Controller(0);
+  /* Controllers, sampled once per loop in readSensors */
+  private final ControllerSnapshot driver = new ControllerSnapshot(0);
 
   /* Buttons */
-  private final JoystickButton zeroGyro = new JoystickButton(driver, PS4Controller.Button.kCircle.value);
-  // private final JoystickButton shoot = new JoystickButton(driver, PS4Controller.Button.kTriangle.value);
+  private static final int ZERO_GYRO_BUTTON = PS4Controller.Button.kCircle.value;
+  private static final int DRIVE_TO_SCORE_BUTTON = PS4Controller.Button.kSquare.value;
+  // private static final int SHOOT_BUTTON = PS4Controller.Button.kTriangle.value;
 
   /* Subsystems */
   private final SwerveDrivetrain drivetrain = new SwerveDrivetrain();
   // private final ShooterSubsystem shooter = new ShooterSubsystem();
+  private final PowerBudgeter powerBudgeter = new PowerBudgeter();
 
   /* Commands */
   private final Command c_zeroGyro = new InstantCommand( () -> drivetrain.zeroGyro() );
+  private final Command c_driveToScore = new PathfindToPose(drivetrain, Constants.Pathfinding.SCORING_POSE);
   // private final Command c_shoot = new Shoot(shooter, 1850.0);
 
-  /* Trajectories */
-  private PathPlannerTrajectory tr_test_1;
+  /* Autonomous */
+  private SendableChooser<Command> autoChooser;
+
+  /* Test mode, drivetrain only until the shooter above is constructed */
+  private PitSelfTest selfTest;
 
   /** The container for the robot. Contains subsystems, OI devices, and commands. */
   public RobotContainer() {
     LiveWindow.disableAllTelemetry();
     DriverStation.silenceJoystickConnectionWarning(true);
 
+    configurePowerBudget();
     setDefaultCommands();
     configureButtonBindings();
-    loadTrajectories();
+    configureCharacterization();
+    configureCalibration();
+    configureSelfTest();
+    configureTuning();
+    loadAutoRoutines();
   }
 
   private void configureButtonBindings() {
-    zeroGyro.whenPressed(c_zeroGyro);
-    // new JoystickButton(driver, PS4Controller.Button.kTriangle.value).whileHeld(c_shoot);
-    // shoot.whileHeld(c_shoot);
+    driver.onPress(ZERO_GYRO_BUTTON, c_zeroGyro);
+    driver.whileTrue(DRIVE_TO_SCORE_BUTTON, c_driveToScore);
+    // driver.whileTrue(SHOOT_BUTTON, c_shoot);
+  }
+
+  private void configurePowerBudget() {
+    powerBudgeter.register("Drivetrain", drivetrain, Constants.Power.DRIVETRAIN_PRIORITY,
+      Constants.Power.DRIVETRAIN_MIN_SUPPLY, Constants.Power.DRIVETRAIN_MAX_SUPPLY);
+    // powerBudgeter.register("Shooter", shooter, Constants.Power.SHOOTER_PRIORITY,
+    //   Constants.Power.SHOOTER_MIN_SUPPLY, Constants.Power.SHOOTER_MAX_SUPPLY);
   }
 
   private void setDefaultCommands() {
@@ -67,14 +106,87 @@ public class RobotContainer {
     // shooter.setDefaultCommand(new IdleShooter(shooter));
   }
 
-  private void loadTrajectories() {
-    // tr_test = TrajectoryHelper.loadWPILibTrajectoryFromFile("test1");
-    // tr_straight = TrajectoryHelper.loadWPILibTrajectoryFromFile("straight");
-    // tr_holotest = TrajectoryHelper.loadPathPlannerTrajectory("straight2");
-    tr_test_1 = TrajectoryHelper.loadHolonomicPathPlannerTrajectory("test_1");
+  private void configureTuning() {
+    Shuffleboard.getTab("Tuning").add("Save Gains",
+      new AsyncCommand<>(TunableRegistry::save, saved -> {}, Constants.Async.DEFAULT_TIMEOUT).ignoringDisable(true));
+  }
+
+  private void configureCharacterization() {
+    ShuffleboardTab tab = Shuffleboard.getTab("Characterization");
+
+    addCharacterization(tab, "Drive", drivetrain,
+      new FeedforwardLog(Constants.Characterization.DRIVE_CONFIG, Constants.Characterization.BUFFER_SIZE, Constants.Characterization.DRIVE_MIN_VELOCITY),
+      drivetrain::runDriveCharacterization, drivetrain::getAverageDriveVelocity);
+    addCharacterization(tab, "Steer", drivetrain,
+      new FeedforwardLog(Constants.Characterization.STEER_CONFIG, Constants.Characterization.BUFFER_SIZE, Constants.Characterization.STEER_MIN_VELOCITY),
+      drivetrain::runSteerCharacterization, drivetrain::getAverageAngleVelocity);
+    // addCharacterization(tab, "Shooter", shooter,
+    //   new FeedforwardLog(Constants.Characterization.SHOOTER_CONFIG, Constants.Characterization.BUFFER_SIZE, Constants.Characterization.SHOOTER_MIN_VELOCITY),
+    //   shooter::setVoltage, shooter::getVelocity);
+  }
+
+  private void configureCalibration() {
+    ShuffleboardTab tab = Shuffleboard.getTab("Calibration");
+    WheelRadiusCalibration wheelCalibration = new WheelRadiusCalibration(drivetrain);
+    tab.add("Wheel Diameter", wheelCalibration);
+    tab.addNumber("Measured Diameter (in)", wheelCalibration::getDiameterInches);
+    tab.add("Steering Offsets", new SteeringOffsetCalibration(drivetrain));
+  }
+
+  private void configureSelfTest() {
+    ShuffleboardTab tab = Shuffleboard.getTab("Self Test");
+    // The drive pulse needs the wheels off the ground, confirmed again before every run
+    GenericEntry wheelsUp = tab.add("Wheels Up", false).withWidget(BuiltInWidgets.kToggleSwitch).getEntry();
+    BooleanSupplier confirmWheelsUp = () -> {
+      boolean confirmed = wheelsUp.getBoolean(false);
+      wheelsUp.setBoolean(false);
+      return confirmed;
+    };
+    selfTest = new PitSelfTest(drivetrain, confirmWheelsUp);
+    // selfTest = new PitSelfTest(drivetrain, shooter, confirmWheelsUp);
+    tab.add("Run", selfTest);
+    tab.addBoolean("Passed", selfTest::hasPassed);
+    tab.addString("Result", selfTest::getSummary);
+  }
+
+  private void addCharacterization(ShuffleboardTab tab, String name, Subsystem subsystem, FeedforwardLog log,
+                                   DoubleConsumer voltageOutput, DoubleSupplier velocity) {
+    tab.add(name + " Quasistatic Fwd", new FeedforwardCharacterization(subsystem, log, FeedforwardCharacterization.Mode.QUASISTATIC, false, voltageOutput, velocity));
+    tab.add(name + " Quasistatic Rev", new FeedforwardCharacterization(subsystem, log, FeedforwardCharacterization.Mode.QUASISTATIC, true, voltageOutput, velocity));
+    tab.add(name + " Dynamic Fwd", new FeedforwardCharacterization(subsystem, log, FeedforwardCharacterization.Mode.DYNAMIC, false, voltageOutput, velocity));
+    tab.add(name + " Dynamic Rev", new FeedforwardCharacterization(subsystem, log, FeedforwardCharacterization.Mode.DYNAMIC, true, voltageOutput, velocity));
+    // Clear the samples before characterizing the mechanism again, every run adds to the same fit
+    tab.add(name + " Reset", new InstantCommand(log::clear).ignoringDisable(true));
+    tab.addNumber(name + " Samples", log::size);
+  }
+
+  /** Commands the auto routines can run by name, also used by the routine benchmark test. */
+  public static Map<String, Supplier<Command>> createAutoEvents(SwerveDrivetrain drivetrain) {
+    Map<String, Supplier<Command>> events = new HashMap<>();
+    events.put("zeroGyro", () -> new InstantCommand(() -> drivetrain.zeroGyro()));
+    // events.put("shoot", () -> new Shoot(shooter, 1850.0));
+    // events.put("idleShooter", () -> new IdleShooter(shooter));
+    return events;
+  }
+
+  private void loadAutoRoutines() {
+    // Every routine is built here so choosing one costs nothing at autonomousInit
+    autoChooser = new AutoRoutineLoader(drivetrain, createAutoEvents(drivetrain)).loadAll(Constants.Auton.DEFAULT_ROUTINE);
+    Shuffleboard.getTab("Auton").add("Routine", autoChooser);
+  }
+
+  /** Sensor phase of the loop, runs before the command scheduler. */
+  public void readSensors() {
+    driver.update();
+    drivetrain.readSensors();
+    // shooter.readSensors();
   }
 
   public Command getAutonomousCommand() {
-    return new RunPathPlannerTrajectory2(drivetrain, tr_test_1);
+    return autoChooser.getSelected();
+  }
+
+  public Command getSelfTestCommand() {
+    return selfTest;
   }
 }
@@ -0,0 +1,41 @@
+package frc.robot;
+
+import edu.wpi.first.math.controller.PIDController;
+import frc.lib.util.TunableNumber;
+import frc.robot.config.RobotConfig;
+
+/**
+ * Gains that can be tuned from the dashboard. Defaults come from the {@link RobotConfig}, saved values
+ * from deploy/tuning/gains.properties take precedence.
+ */
+public final class Tuning {
+
+    private static final RobotConfig config = RobotConfig.getInstance();
+
+    /* Angle Motor PID Values */
+    public static final TunableNumber ANGLE_kP = new TunableNumber("Angle kP", config.swerve.angleGains.kP);
+    public static final TunableNumber ANGLE_kD = new TunableNumber("Angle kD", config.swerve.angleGains.kD);
+
+    /* Drive Motor PID Values */
+    public static final TunableNumber DRIVE_kP = new TunableNumber("Drive kP", config.swerve.driveGains.kP);
+
+    /* Auton Path Following */
+    public static final TunableNumber PX_kP     = new TunableNumber("Auton PX kP", config.auton.xGains.kP);
+    public static final TunableNumber PX_kD     = new TunableNumber("Auton PX kD", config.auton.xGains.kD);
+    public static final TunableNumber PY_kP     = new TunableNumber("Auton PY kP", config.auton.yGains.kP);
+    public static final TunableNumber PY_kD     = new TunableNumber("Auton PY kD", config.auton.yGains.kD);
+    public static final TunableNumber THETA_kP  = new TunableNumber("Auton Theta kP", config.auton.thetaGains.kP);
+    public static final TunableNumber THETA_kD  = new TunableNumber("Auton Theta kD", config.auton.thetaGains.kD);
+
+    private Tuning() {}
+
+    /**
+     * Load the current path following gains into a command's controllers. Commands call this when
+     * they start, so gains tuned after they were built still reach them.
+     */
+    public static void applyAutonGains(PIDController x, PIDController y, PIDController theta) {
+        x.setPID(PX_kP.get(), 0.0, PX_kD.get());
+        y.setPID(PY_kP.get(), 0.0, PY_kD.get());
+        theta.setPID(THETA_kP.get(), 0.0, THETA_kD.get());
+    }
+}
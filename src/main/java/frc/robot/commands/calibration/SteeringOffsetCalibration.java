@@ -0,0 +1,75 @@
+package frc.robot.commands.calibration;
+
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.lib.util.AsyncWorker;
+import frc.robot.Constants;
+import frc.robot.subsystems.SwerveDrivetrain;
+import frc.robot.utils.swerve.SwerveCalibration;
+import frc.robot.utils.swerve.SwerveModule;
+
+/**
+ * Averages the CANCoder readings with every wheel aligned straight ahead, bevel gears facing the
+ * same way, and stores them as the steering offsets. Meant to run disabled while the wheels are
+ * held straight. The offsets are applied straight away and loaded from the calibration file at
+ * every boot after.
+ */
+public class SteeringOffsetCalibration extends CommandBase {
+
+    private final SwerveDrivetrain drivetrain;
+    private final double[] sumSin = new double[4];
+    private final double[] sumCos = new double[4];
+    private int samples;
+
+    public SteeringOffsetCalibration(SwerveDrivetrain drivetrain) {
+        this.drivetrain = drivetrain;
+        addRequirements(drivetrain);
+    }
+
+    @Override
+    public void initialize() {
+        samples = 0;
+        for (int i = 0; i < 4; i++) {
+            sumSin[i] = 0.0;
+            sumCos[i] = 0.0;
+        }
+    }
+
+    @Override
+    public void execute() {
+        SwerveModule[] modules = drivetrain.getModules();
+        for (int i = 0; i < modules.length; i++) {
+            // Average on the circle so readings either side of 0/360 don't cancel out
+            double radians = modules[i].getCanCoder().getRadians();
+            sumSin[i] += Math.sin(radians);
+            sumCos[i] += Math.cos(radians);
+        }
+        samples++;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        if (interrupted) {
+            return;
+        }
+
+        SwerveModule[] modules = drivetrain.getModules();
+        double[] offsets = new double[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            double degrees = Math.toDegrees(Math.atan2(sumSin[i], sumCos[i]));
+            offsets[i] = (degrees < 0.0) ? degrees + 360.0 : degrees;
+            System.out.println("Steering calibration: Mod" + i + " offset " + offsets[i] + " (was " + modules[i].getAngleOffset() + ")");
+            modules[i].setAngleOffset(offsets[i]);
+        }
+        AsyncWorker.getInstance().submit(() -> SwerveCalibration.saveAngleOffsets(offsets));
+    }
+
+    @Override
+    public boolean isFinished() {
+        return samples >= Constants.Calibration.OFFSET_SAMPLES;
+    }
+
+    @Override
+    public boolean runsWhenDisabled() {
+        return true;
+    }
+}
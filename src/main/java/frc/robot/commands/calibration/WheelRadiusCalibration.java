@@ -0,0 +1,114 @@
+package frc.robot.commands.calibration;
+
+import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.lib.util.AsyncWorker;
+import frc.robot.Constants;
+import frc.robot.subsystems.SwerveDrivetrain;
+import frc.robot.utils.swerve.SwerveCalibration;
+import frc.robot.utils.swerve.SwerveModule;
+
+/**
+ * Spins the robot in place and fits the effective wheel diameter from the gyro yaw against the
+ * wheel rotations. Each wheel travels yaw times its distance from the center, so the diameter
+ * does not depend on the diameter odometry currently uses. The result is saved to the
+ * calibration file and used from the next boot.
+ */
+public class WheelRadiusCalibration extends CommandBase {
+
+    private final SwerveDrivetrain drivetrain;
+    private final SlewRateLimiter limiter = new SlewRateLimiter(Constants.Calibration.WHEEL_SPIN_RAMP);
+    private final Translation2d[] moduleTranslations;
+    private final double[] startRotations = new double[4];
+
+    private boolean measuring;
+    private double startYaw;
+    private double turned;
+    private double diameter = Double.NaN;
+
+    public WheelRadiusCalibration(SwerveDrivetrain drivetrain) {
+        this.drivetrain = drivetrain;
+        this.moduleTranslations = drivetrain.getConfig().getModuleTranslations();
+        addRequirements(drivetrain);
+    }
+
+    @Override
+    public void initialize() {
+        limiter.reset(0.0);
+        measuring = false;
+        turned = 0.0;
+        diameter = Double.NaN;
+    }
+
+    @Override
+    public void execute() {
+        double speed = limiter.calculate(Constants.Calibration.WHEEL_SPIN_SPEED);
+        drivetrain.drive(new Translation2d(), speed, false, true);
+
+        // Start measuring once at full speed, so the modules are done turning to the tangent
+        if (!measuring) {
+            if (speed >= Constants.Calibration.WHEEL_SPIN_SPEED) {
+                measuring = true;
+                startYaw = drivetrain.getContinuousYawRadians();
+                SwerveModule[] modules = drivetrain.getModules();
+                for (int i = 0; i < modules.length; i++) {
+                    startRotations[i] = modules[i].getDriveWheelRotations();
+                }
+            }
+            return;
+        }
+
+        turned = Math.abs(drivetrain.getContinuousYawRadians() - startYaw);
+        diameter = estimate();
+    }
+
+    private double estimate() {
+        SwerveModule[] modules = drivetrain.getModules();
+        double sum = 0.0;
+        int count = 0;
+        for (int i = 0; i < modules.length; i++) {
+            double rotations = Math.abs(modules[i].getDriveWheelRotations() - startRotations[i]);
+            if (rotations < 1e-3) {
+                continue;
+            }
+            double arc = turned * moduleTranslations[i].getNorm();
+            sum += arc / (Math.PI * rotations);
+            count++;
+        }
+        return (count > 0) ? sum / count : Double.NaN;
+    }
+
+    /**
+     * @return Latest diameter estimate in inches, NaN until the robot is up to speed
+     */
+    public double getDiameterInches() {
+        return Units.metersToInches(diameter);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        drivetrain.drive(new Translation2d(), 0.0, false, true);
+
+        if (turned < Constants.Calibration.WHEEL_MIN_ROTATION || Double.isNaN(diameter)) {
+            DriverStation.reportWarning("Wheel calibration: only turned " + Math.toDegrees(turned) + " degrees, not saved", false);
+            return;
+        }
+        double change = Math.abs(diameter / drivetrain.getConfig().wheelDiameter - 1.0);
+        if (change > Constants.Calibration.WHEEL_MAX_CHANGE) {
+            DriverStation.reportWarning("Wheel calibration: " + Units.metersToInches(diameter) + " in is too far from nominal, not saved", false);
+            return;
+        }
+
+        final double measured = diameter;
+        System.out.println("Wheel calibration: diameter " + Units.metersToInches(measured) + " in, applied at next boot");
+        AsyncWorker.getInstance().submit(() -> SwerveCalibration.saveWheelDiameter(measured));
+    }
+
+    @Override
+    public boolean isFinished() {
+        return turned >= Constants.Calibration.WHEEL_TARGET_ROTATION;
+    }
+}
@@ -0,0 +1,110 @@
+package frc.robot.commands.characterization;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.lib.util.AsyncWorker;
+import frc.robot.Constants;
+import frc.robot.utils.characterization.FeedforwardLog;
+
+/**
+ * Runs a mechanism open loop and feeds the response into a {@link FeedforwardLog}. A quasistatic
+ * test ramps the voltage slowly so acceleration stays near zero, a dynamic test applies a voltage
+ * step. Each run refits and saves the log when it ends, so run both before trusting kA. The log
+ * keeps every run until it is cleared, so clear it before characterizing the mechanism again.
+ */
+public class FeedforwardCharacterization extends CommandBase {
+
+    public enum Mode {
+        QUASISTATIC,
+        DYNAMIC
+    }
+
+    private final FeedforwardLog log;
+    private final Mode mode;
+    private final double direction;
+    private final DoubleConsumer voltageOutput;
+    private final DoubleSupplier velocitySupplier;
+
+    private final Timer timer = new Timer();
+    private double lastTime;
+    private double lastVelocity;
+    private double lastVolts;
+
+    /**
+     * @param subsystem Mechanism being characterized
+     * @param log Samples and fit shared with the other runs of this mechanism
+     * @param mode Quasistatic ramp or dynamic step
+     * @param reverse Run the mechanism backwards
+     * @param voltageOutput Applies a voltage to the mechanism
+     * @param velocitySupplier Mechanism velocity, in the units the feedforward should use
+     */
+    public FeedforwardCharacterization(Subsystem subsystem, FeedforwardLog log, Mode mode, boolean reverse,
+                                       DoubleConsumer voltageOutput, DoubleSupplier velocitySupplier) {
+        this.log = log;
+        this.mode = mode;
+        this.direction = reverse ? -1.0 : 1.0;
+        this.voltageOutput = voltageOutput;
+        this.velocitySupplier = velocitySupplier;
+        addRequirements(subsystem);
+    }
+
+    private double duration() {
+        return (mode == Mode.QUASISTATIC) ? Constants.Characterization.QUASISTATIC_DURATION : Constants.Characterization.DYNAMIC_DURATION;
+    }
+
+    @Override
+    public void initialize() {
+        timer.reset();
+        timer.start();
+        lastTime = 0.0;
+        lastVelocity = velocitySupplier.getAsDouble();
+        lastVolts = 0.0;
+    }
+
+    @Override
+    public void execute() {
+        double time = timer.get();
+        double volts = (mode == Mode.QUASISTATIC)
+            ? time * Constants.Characterization.QUASISTATIC_RAMP_RATE
+            : Constants.Characterization.DYNAMIC_STEP_VOLTAGE;
+        volts *= direction;
+
+        double velocity = velocitySupplier.getAsDouble();
+        double dt = time - lastTime;
+        if (dt > 1e-6) {
+            // The voltage applied last loop is what produced this change in velocity
+            log.add(lastVolts, velocity, (velocity - lastVelocity) / dt);
+        }
+        lastTime = time;
+        lastVelocity = velocity;
+        lastVolts = volts;
+
+        voltageOutput.accept(volts);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        voltageOutput.accept(0.0);
+        timer.stop();
+        if (log.isFull()) {
+            DriverStation.reportWarning("Characterization log is full, reset it before running again", false);
+        }
+
+        if (log.solve()) {
+            System.out.println("Feedforward fit: kS=" + log.getkS() + " kV=" + log.getkV() + " kA=" + log.getkA());
+            AsyncWorker.getInstance().submit(log::save);
+        } else {
+            System.out.println("Feedforward fit: not enough data (" + log.size() + " samples)");
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return timer.get() >= duration() || log.isFull();
+    }
+}
@@ -0,0 +1,200 @@
+package frc.robot.commands.drivetrain;
+
+import java.util.function.Supplier;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.lib.util.AsyncTask;
+import frc.lib.util.AsyncWorker;
+import frc.robot.Constants;
+import frc.robot.Tuning;
+import frc.robot.subsystems.SwerveDrivetrain;
+import frc.robot.utils.TrajectoryCache;
+import frc.robot.utils.TrajectoryHelper;
+import frc.robot.utils.nav.FieldGrid;
+import frc.robot.utils.nav.GridPathfinder;
+
+/**
+ * Drives to a pose along a trajectory generated on the fly from the robot's current pose and
+ * velocity, routed around the obstacles in the field grid. Generation runs on the
+ * {@link AsyncWorker}. Until the first trajectory is ready the robot is held still and plans from
+ * rest. If the target moves, a new trajectory is generated from wherever the robot is at that
+ * point and its velocity, and the previous one keeps being followed meanwhile. Generation that
+ * fails or times out is retried, and the command gives up after
+ * {@link Constants.Pathfinding#MAX_GENERATION_ATTEMPTS} attempts in a row.
+ */
+public class PathfindToPose extends CommandBase {
+
+    private static final TrajectoryCache cache = new TrajectoryCache(Constants.Pathfinding.CACHE_CAPACITY);
+    private static final FieldGrid grid = FieldGrid.load(Constants.Navigation.GRID_FILE);
+    private static final ThreadLocal<GridPathfinder> pathfinders = ThreadLocal.withInitial(() -> new GridPathfinder(grid));
+
+    private final SwerveDrivetrain drivetrain;
+    private final Supplier<Pose2d> targetSupplier;
+    private final PathConstraints constraints;
+
+    private final PIDController xController = new PIDController(0.0, 0.0, 0.0);
+    private final PIDController yController = new PIDController(0.0, 0.0, 0.0);
+    private final PIDController thetaController = new PIDController(0.0, 0.0, 0.0);
+    private final PPHolonomicDriveController controller = new PPHolonomicDriveController(xController, yController, thetaController);
+    private final Timer timer = new Timer();
+
+    private PathPlannerTrajectory trajectory;
+    private AsyncTask<PathPlannerTrajectory> pending;
+    private Pose2d plannedTarget;
+    private boolean retry;
+    private int failedAttempts;
+
+    public PathfindToPose (SwerveDrivetrain drivetrain, Supplier<Pose2d> targetSupplier) {
+        this.drivetrain = drivetrain;
+        this.targetSupplier = targetSupplier;
+        this.constraints = new PathConstraints(Constants.Pathfinding.MAX_SPEED_MPS, Constants.Pathfinding.MAX_ACCELERATION_MPSS);
+        addRequirements(drivetrain);
+    }
+
+    public PathfindToPose (SwerveDrivetrain drivetrain, Pose2d target) {
+        this(drivetrain, () -> target);
+    }
+
+    private boolean targetMoved (Pose2d target) {
+        return plannedTarget == null
+            || target.getTranslation().getDistance(plannedTarget.getTranslation()) > Constants.Pathfinding.REPLAN_TRANSLATION_TOLERANCE
+            || Math.abs(target.getRotation().minus(plannedTarget.getRotation()).getDegrees()) > Constants.Pathfinding.REPLAN_ROTATION_TOLERANCE;
+    }
+
+    private void plan (Pose2d target) {
+        Pose2d start = drivetrain.getPose();
+        // Held still until the first trajectory is ready, so that one starts at rest
+        ChassisSpeeds speeds = (trajectory != null) ? drivetrain.getFieldRelativeSpeeds() : new ChassisSpeeds();
+        plannedTarget = target;
+        retry = false;
+
+        if (pending != null) {
+            pending.cancel();
+            pending = null;
+        }
+
+        PathPlannerTrajectory cached = cache.get(start, speeds, target);
+        if (cached != null) {
+            startFollowing(cached);
+            return;
+        }
+
+        pending = AsyncWorker.getInstance().submit(() -> {
+            PathPlannerTrajectory generated = TrajectoryHelper.createObstacleAvoidingTrajectory(start, speeds, target, pathfinders.get(), constraints);
+            cache.put(start, speeds, target, generated);
+            return generated;
+        }, Constants.Pathfinding.GENERATION_TIMEOUT);
+    }
+
+    private void startFollowing (PathPlannerTrajectory newTrajectory) {
+        trajectory = newTrajectory;
+        timer.reset();
+        timer.start();
+    }
+
+    @Override
+    public void initialize() {
+        Tuning.applyAutonGains(xController, yController, thetaController);
+        xController.reset();
+        yController.reset();
+        thetaController.reset();
+
+        trajectory = null;
+        pending = null;
+        plannedTarget = null;
+        retry = false;
+        failedAttempts = 0;
+        timer.stop();
+        timer.reset();
+        plan(targetSupplier.get());
+    }
+
+    @Override
+    public void execute() {
+        Pose2d target = targetSupplier.get();
+        if (retry || targetMoved(target)) {
+            plan(target);
+        }
+
+        if (pending != null && pending.isDone()) {
+            if (pending.getState() == AsyncTask.State.SUCCEEDED) {
+                startFollowing(pending.getResult());
+                failedAttempts = 0;
+            } else {
+                generationFailed();
+            }
+            pending = null;
+        } else if (pending != null && pending.isExpired()) {
+            pending.cancel();
+            pending = null;
+            generationFailed();
+        }
+
+        if (trajectory == null) {
+            drivetrain.drive(new Translation2d(), 0.0, false, false);
+            return;
+        }
+
+        PathPlannerState reference = (PathPlannerState) trajectory.sample(timer.get());
+        ChassisSpeeds speeds = controller.calculate(drivetrain.getPose(), reference);
+        drivetrain.setModuleStates(drivetrain.getKinematics().toSwerveModuleStates(speeds));
+    }
+
+    private void generationFailed() {
+        failedAttempts++;
+        retry = true;   // Try again next loop
+    }
+
+    private boolean gaveUp() {
+        return failedAttempts >= Constants.Pathfinding.MAX_GENERATION_ATTEMPTS;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        if (pending != null) {
+            pending.cancel();
+            pending = null;
+        }
+        timer.stop();
+        drivetrain.drive(new Translation2d(), 0.0, false, false);
+        if (gaveUp()) {
+            DriverStation.reportWarning("Pathfinding gave up after " + failedAttempts + " failed trajectory generations", false);
+        } else if (!interrupted && !atTarget()) {
+            DriverStation.reportWarning("Pathfinding gave up " + distanceToTarget() + " m from the target", false);
+        }
+    }
+
+    private double distanceToTarget() {
+        return drivetrain.getPose().getTranslation().getDistance(plannedTarget.getTranslation());
+    }
+
+    private boolean atTarget() {
+        Pose2d pose = drivetrain.getPose();
+        return plannedTarget != null
+            && distanceToTarget() < Constants.Pathfinding.GOAL_TRANSLATION_TOLERANCE
+            && Math.abs(pose.getRotation().minus(plannedTarget.getRotation()).getDegrees()) < Constants.Pathfinding.GOAL_ROTATION_TOLERANCE;
+    }
+
+    @Override
+    public boolean isFinished() {
+        if (gaveUp()) {
+            return true;
+        }
+        if (trajectory == null || pending != null || plannedTarget == null || timer.get() < trajectory.getTotalTimeSeconds()) {
+            return false;
+        }
+        // Stop trying once the trajectory has been over for a while, the tolerance may be out of reach
+        return atTarget() || timer.get() >= trajectory.getTotalTimeSeconds() + Constants.Pathfinding.GOAL_TIMEOUT;
+    }
+}
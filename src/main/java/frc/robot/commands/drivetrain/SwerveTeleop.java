@@ -1,15 +1,14 @@
 package frc.robot.commands.drivetrain;
 
-import frc.robot.Constants;
+import frc.lib.util.ControllerSnapshot;
 import frc.robot.subsystems.SwerveDrivetrain;
 
-import edu.wpi.first.wpilibj.PS4Controller;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
 public class SwerveTeleop extends CommandBase {
 
-    private static final double DEADBAND = 0.1;
+    public static final double DEADBAND = 0.1;
 
     private double rotation;
     private Translation2d translation;
@@ -17,9 +16,9 @@ public class SwerveTeleop extends CommandBase {
     private boolean openLoop;
     
     private SwerveDrivetrain s_Swerve;
-    private PS4Controller controller;
+    private ControllerSnapshot controller;
 
-    public SwerveTeleop (SwerveDrivetrain s_Swerve, PS4Controller controller, boolean fieldRelative, boolean openLoop) {
+    public SwerveTeleop (SwerveDrivetrain s_Swerve, ControllerSnapshot controller, boolean fieldRelative, boolean openLoop) {
         this.s_Swerve = s_Swerve;
         addRequirements(s_Swerve);
 
@@ -34,17 +33,17 @@ public class SwerveTeleop extends CommandBase {
         // double xAxis = -controller.getLeftX();
         // double rAxis = -controller.getRightX();
 
-        double yAxis = -controller.getRawAxis(1);
-        double xAxis = -controller.getRawAxis(0);
-        double rAxis = -controller.getRawAxis(2);
+        double yAxis = -controller.getAxis(1);
+        double xAxis = -controller.getAxis(0);
+        double rAxis = -controller.getAxis(2);
         
         /* Deadbands */
         yAxis = (Math.abs(yAxis) < DEADBAND) ? 0 : yAxis;
         xAxis = (Math.abs(xAxis) < DEADBAND) ? 0 : xAxis;
         rAxis = (Math.abs(rAxis) < DEADBAND) ? 0 : rAxis;
 
-        translation = new Translation2d(yAxis, xAxis).times(Constants.SwerveDrivetrain.MAX_SPEED);
-        rotation = rAxis * Constants.SwerveDrivetrain.MAX_ANGULAR_VELOCITY;
+        translation = new Translation2d(yAxis, xAxis).times(s_Swerve.getConfig().maxSpeed);
+        rotation = rAxis * s_Swerve.getConfig().maxAngularVelocity;
         s_Swerve.drive(translation, rotation, fieldRelative, openLoop);
     }
 }
@@ -0,0 +1,294 @@
+package frc.robot.commands.selftest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.config.SwerveConfig;
+import frc.robot.sim.SpinUpSim;
+import frc.robot.sim.SteeringSim;
+import frc.robot.subsystems.ShooterSubsystem;
+import frc.robot.subsystems.SwerveDrivetrain;
+import frc.robot.utils.swerve.SwerveModule;
+
+/**
+ * Pit check run from test mode. Every module steers out and back, then pulses its drive if the
+ * wheels up confirmation reads true as the test starts; on the floor the robot would drive off and
+ * fail every drive check. A shooter, if one is passed in, spins up at the same time. Settle time,
+ * steady state error and current of each step are compared with the same step simulated on a
+ * motor model, and a pass or fail report is printed when it finishes a couple of seconds later.
+ */
+public class PitSelfTest extends CommandBase {
+
+    private static final DCMotor FALCON = DCMotor.getFalcon500(1);
+
+    /** One step of one mechanism, compared against its simulated response. */
+    private static final class Measurement {
+        private final String name;
+        private final String units;
+        private final double duration;
+        private final double expectedSettle;
+        private final double tolerance;
+        private final double expectedCurrent;
+        private double target;
+
+        private double settleTime;
+        private double errorSum;
+        private double currentSum;
+        private int steadySamples;
+
+        Measurement(String name, String units, double duration, double expectedSettle, double tolerance, double expectedCurrent) {
+            this.name = name;
+            this.units = units;
+            this.duration = duration;
+            this.expectedSettle = expectedSettle;
+            this.tolerance = tolerance;
+            this.expectedCurrent = expectedCurrent;
+        }
+
+        void start(double target) {
+            this.target = target;
+            this.settleTime = 0.0;
+            this.errorSum = 0.0;
+            this.currentSum = 0.0;
+            this.steadySamples = 0;
+        }
+
+        /**
+         * @param time Seconds since this step started
+         */
+        void sample(double time, double value, double current) {
+            double error = Math.abs(value - target);
+            if (error > tolerance) {
+                settleTime = time;
+            }
+            if (time >= duration - Constants.SelfTest.STEADY_WINDOW) {
+                errorSum += error;
+                currentSum += Math.abs(current);
+                steadySamples++;
+            }
+        }
+
+        double settleLimit() {
+            return expectedSettle * Constants.SelfTest.RESPONSE_MARGIN + Constants.SelfTest.RESPONSE_SLACK;
+        }
+
+        double currentLimit() {
+            return expectedCurrent + Constants.SelfTest.CURRENT_SLACK;
+        }
+
+        double steadyError() {
+            return (steadySamples > 0) ? errorSum / steadySamples : Double.NaN;
+        }
+
+        double steadyCurrent() {
+            return (steadySamples > 0) ? currentSum / steadySamples : Double.NaN;
+        }
+
+        boolean passed() {
+            // NaN comparisons fail, so a step that never reached its steady window fails too
+            return settleTime <= settleLimit() && steadyError() <= tolerance && steadyCurrent() <= currentLimit();
+        }
+
+        String report() {
+            return String.format("%-16s %s  settle %4.0f ms (max %4.0f)  error %7.2f %s (max %.2f)  current %5.1f A (max %4.1f)",
+                name, passed() ? "PASS" : "FAIL",
+                settleTime * 1000.0, settleLimit() * 1000.0,
+                steadyError(), units, tolerance,
+                steadyCurrent(), currentLimit());
+        }
+    }
+
+    private final ShooterSubsystem shooter;
+    private final SwerveModule[] modules;
+    private final BooleanSupplier wheelsUp;
+
+    private final Measurement[] steerOut;
+    private final Measurement[] steerBack;
+    private final Measurement[] drive;
+    private final Measurement spinUp;
+    private final double[] startAngles;
+    private final double driveSpeed;
+    private final double shooterSpeed;
+
+    private final Timer timer = new Timer();
+    private boolean pulseDrive = false;
+    private boolean passed = false;
+    private String summary = "Not run";
+
+    public PitSelfTest(SwerveDrivetrain drivetrain, BooleanSupplier wheelsUp) {
+        this(drivetrain, null, wheelsUp);
+    }
+
+    /**
+     * @param shooter Shooter to spin up alongside the drivetrain, null to leave it out
+     * @param wheelsUp Read once as the test starts, true if the drive wheels are off the ground
+     */
+    public PitSelfTest(SwerveDrivetrain drivetrain, ShooterSubsystem shooter, BooleanSupplier wheelsUp) {
+        this.shooter = shooter;
+        this.modules = drivetrain.getModules();
+        this.wheelsUp = wheelsUp;
+        addRequirements(drivetrain);
+        if (shooter != null) {
+            addRequirements(shooter);
+        }
+
+        SwerveConfig config = drivetrain.getConfig();
+        double wheelRadius = config.wheelDiameter / 2.0;
+        SpinUpSim.Result driveModel = SpinUpSim.stepResponse(FALCON, config.driveGearRatio, Constants.SelfTest.DRIVE_INERTIA,
+            Constants.SelfTest.DRIVE_VOLTS, Constants.SelfTest.DRIVE_TIME, Constants.SelfTest.SPEED_TOLERANCE);
+        this.driveSpeed = driveModel.speed * wheelRadius;
+        // The Talon ramps open loop output, which the motor model does not know about
+        double driveSettle = driveModel.settleTime + config.openLoopRamp * Constants.SelfTest.DRIVE_VOLTS / FALCON.nominalVoltageVolts;
+
+        this.steerOut = new Measurement[modules.length];
+        this.steerBack = new Measurement[modules.length];
+        this.drive = new Measurement[modules.length];
+        this.startAngles = new double[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            // Steering holds position against nothing, so the model expects no steady current
+            double steerSettle = SteeringSim.stepResponse(config, config.getModule(i).motionMagicSteering, Constants.SelfTest.STEER_STEP).settleTime;
+            this.steerOut[i] = new Measurement("Mod" + i + " steer out", "deg",
+                Constants.SelfTest.STEER_STEP_TIME, steerSettle, Constants.SelfTest.STEER_TOLERANCE, 0.0);
+            this.steerBack[i] = new Measurement("Mod" + i + " steer back", "deg",
+                Constants.SelfTest.STEER_STEP_TIME, steerSettle, Constants.SelfTest.STEER_TOLERANCE, 0.0);
+            this.drive[i] = new Measurement("Mod" + i + " drive", "m/s",
+                Constants.SelfTest.DRIVE_TIME, driveSettle, driveSpeed * Constants.SelfTest.SPEED_TOLERANCE, driveModel.current);
+        }
+
+        SpinUpSim.Result shooterModel = SpinUpSim.stepResponse(FALCON, 1.0, Constants.SelfTest.SHOOTER_INERTIA,
+            Constants.SelfTest.SHOOTER_VOLTS, Constants.SelfTest.SHOOTER_TIME, Constants.SelfTest.SPEED_TOLERANCE);
+        this.shooterSpeed = Units.radiansPerSecondToRotationsPerMinute(shooterModel.speed);
+        this.spinUp = new Measurement("Shooter spin up", "RPM",
+            Constants.SelfTest.SHOOTER_TIME, shooterModel.settleTime, shooterSpeed * Constants.SelfTest.SPEED_TOLERANCE, shooterModel.current);
+    }
+
+    private static double steerEnd() {
+        return 2.0 * Constants.SelfTest.STEER_STEP_TIME;
+    }
+
+    private double driveEnd() {
+        return pulseDrive ? steerEnd() + Constants.SelfTest.DRIVE_TIME : steerEnd();
+    }
+
+    private double duration() {
+        return (shooter != null) ? Math.max(driveEnd(), Constants.SelfTest.SHOOTER_TIME) : driveEnd();
+    }
+
+    @Override
+    public void initialize() {
+        pulseDrive = wheelsUp.getAsBoolean();
+        for (int i = 0; i < modules.length; i++) {
+            startAngles[i] = modules[i].getAngleDegrees();
+            steerOut[i].start(startAngles[i] + Constants.SelfTest.STEER_STEP);
+            steerBack[i].start(startAngles[i]);
+            drive[i].start(driveSpeed);
+        }
+        spinUp.start(shooterSpeed);
+        summary = "Running";
+        timer.reset();
+        timer.start();
+    }
+
+    @Override
+    public void execute() {
+        double time = timer.get();
+
+        // The loop sample reflects what was commanded last loop, so measure before commanding
+        for (int i = 0; i < modules.length; i++) {
+            SwerveModule module = modules[i];
+            if (time < Constants.SelfTest.STEER_STEP_TIME) {
+                steerOut[i].sample(time, module.getAngleDegrees(), module.getAngleStatorCurrent());
+                module.setAngleAndDriveVoltage(startAngles[i] + Constants.SelfTest.STEER_STEP, 0.0);
+            } else if (time < steerEnd()) {
+                steerBack[i].sample(time - Constants.SelfTest.STEER_STEP_TIME, module.getAngleDegrees(), module.getAngleStatorCurrent());
+                module.setAngleAndDriveVoltage(startAngles[i], 0.0);
+            } else if (pulseDrive && time < driveEnd()) {
+                drive[i].sample(time - steerEnd(), module.getDriveVelocity(), module.getDriveStatorCurrent());
+                module.setAngleAndDriveVoltage(startAngles[i], Constants.SelfTest.DRIVE_VOLTS);
+            } else {
+                module.setAngleAndDriveVoltage(startAngles[i], 0.0);
+            }
+        }
+
+        if (shooter != null) {
+            if (time < Constants.SelfTest.SHOOTER_TIME) {
+                spinUp.sample(time, shooter.getVelocity(), shooter.getStatorCurrent());
+                shooter.setVoltage(Constants.SelfTest.SHOOTER_VOLTS);
+            } else {
+                shooter.setVoltage(0.0);
+            }
+        }
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        timer.stop();
+        for (int i = 0; i < modules.length; i++) {
+            modules[i].setAngleAndDriveVoltage(startAngles[i], 0.0);
+        }
+        if (shooter != null) {
+            shooter.setVoltage(0.0);
+        }
+
+        if (interrupted) {
+            passed = false;
+            summary = "Interrupted";
+            DriverStation.reportWarning("Self test interrupted after " + timer.get() + " s", false);
+            return;
+        }
+
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < modules.length; i++) {
+            measurements.add(steerOut[i]);
+            measurements.add(steerBack[i]);
+            if (pulseDrive) {
+                measurements.add(drive[i]);
+            }
+        }
+        if (shooter != null) {
+            measurements.add(spinUp);
+        }
+
+        int failures = 0;
+        System.out.println(String.format("Self test, %.1f s", timer.get()));
+        if (shooter == null) {
+            System.out.println("Shooter not checked, the self test was built without one");
+        }
+        if (!pulseDrive) {
+            System.out.println("Drive not checked, wheels up was not confirmed on the dashboard");
+        }
+        for (Measurement measurement : measurements) {
+            System.out.println(measurement.report());
+            if (!measurement.passed()) {
+                failures++;
+            }
+        }
+
+        passed = (failures == 0);
+        summary = passed ? "All " + measurements.size() + " checks passed" : failures + " of " + measurements.size() + " checks failed";
+        System.out.println("Self test " + (passed ? "PASSED" : "FAILED") + ": " + summary);
+        if (!passed) {
+            DriverStation.reportWarning("Self test failed: " + summary + ", see the console for details", false);
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return timer.get() >= duration();
+    }
+
+    public boolean hasPassed() {
+        return passed;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,27 @@
+package frc.robot.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import frc.robot.Constants;
+
+/**
+ * Immutable path following limits and default gains. Runtime tuned values in
+ * {@link frc.robot.Tuning} start from these gains.
+ */
+public final class AutonConfig {
+
+    public final double maxSpeed;           // m/s
+    public final double maxAcceleration;    // m/s^2
+    public final PidGains xGains;
+    public final PidGains yGains;
+    public final PidGains thetaGains;
+
+    AutonConfig(JsonNode node) {
+        String path = "auton";
+        this.maxSpeed = ConfigReader.readPositive(node, path, "maxSpeed", Constants.Auton.MAX_SPEED_MPS);
+        this.maxAcceleration = ConfigReader.readPositive(node, path, "maxAcceleration", Constants.Auton.MAX_ACCELERATION_MPSS);
+        this.xGains = PidGains.read(node.path("xGains"), path + ".xGains", Constants.Auton.PX_GAINS);
+        this.yGains = PidGains.read(node.path("yGains"), path + ".yGains", Constants.Auton.PY_GAINS);
+        this.thetaGains = PidGains.read(node.path("thetaGains"), path + ".thetaGains", Constants.Auton.THETA_GAINS);
+    }
+}
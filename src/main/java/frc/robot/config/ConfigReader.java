@@ -0,0 +1,74 @@
+package frc.robot.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Typed reads from a config node with a fallback for anything left out, so a robot file only
+ * needs the values that differ from {@link frc.robot.Constants}. Values of the wrong type or out
+ * of range throw with the full key in the message.
+ */
+final class ConfigReader {
+
+    private ConfigReader() {}
+
+    static double readDouble(JsonNode node, String path, String key, double fallback) {
+        JsonNode value = node.path(key);
+        if (value.isMissingNode() || value.isNull()) {
+            return fallback;
+        }
+        if (!value.isNumber()) {
+            throw new IllegalArgumentException(path + "." + key + " must be a number, got " + value.toString());
+        }
+        return value.asDouble();
+    }
+
+    static double readPositive(JsonNode node, String path, String key, double fallback) {
+        double value = readDouble(node, path, key, fallback);
+        if (!(value > 0.0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(path + "." + key + " must be positive, got " + value);
+        }
+        return value;
+    }
+
+    static double readNonNegative(JsonNode node, String path, String key, double fallback) {
+        double value = readDouble(node, path, key, fallback);
+        if (!(value >= 0.0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(path + "." + key + " must not be negative, got " + value);
+        }
+        return value;
+    }
+
+    static int readInt(JsonNode node, String path, String key, int fallback) {
+        JsonNode value = node.path(key);
+        if (value.isMissingNode() || value.isNull()) {
+            return fallback;
+        }
+        if (!value.isInt()) {
+            throw new IllegalArgumentException(path + "." + key + " must be an integer, got " + value.toString());
+        }
+        return value.asInt();
+    }
+
+    static int readCanId(JsonNode node, String path, String key, int fallback) {
+        int value = readInt(node, path, key, fallback);
+        requireCanId(path + "." + key, value);
+        return value;
+    }
+
+    static void requireCanId(String name, int id) {
+        if (id < 0 || id > 62) {
+            throw new IllegalArgumentException(name + " must be a CAN ID from 0 to 62, got " + id);
+        }
+    }
+
+    static boolean readBoolean(JsonNode node, String path, String key, boolean fallback) {
+        JsonNode value = node.path(key);
+        if (value.isMissingNode() || value.isNull()) {
+            return fallback;
+        }
+        if (!value.isBoolean()) {
+            throw new IllegalArgumentException(path + "." + key + " must be true or false, got " + value.toString());
+        }
+        return value.asBoolean();
+    }
+}
@@ -0,0 +1,40 @@
+package frc.robot.config;
+
+import com.ctre.phoenix.motorcontrol.SupplyCurrentLimitConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Immutable supply current limit of one motor.
+ */
+public final class CurrentLimit {
+
+    public final boolean enabled;
+    public final double continuous;     // amps
+    public final double peak;           // amps
+    public final double peakDuration;   // seconds
+
+    public CurrentLimit(boolean enabled, double continuous, double peak, double peakDuration) {
+        if (!(continuous > 0.0) || peak < continuous || peakDuration < 0.0) {
+            throw new IllegalArgumentException("Current limit needs 0 < continuous <= peak and a non-negative duration");
+        }
+        this.enabled = enabled;
+        this.continuous = continuous;
+        this.peak = peak;
+        this.peakDuration = peakDuration;
+    }
+
+    static CurrentLimit read(JsonNode node, String path, CurrentLimit fallback) {
+        return new CurrentLimit(
+            ConfigReader.readBoolean(node, path, "enabled", fallback.enabled),
+            ConfigReader.readPositive(node, path, "continuous", fallback.continuous),
+            ConfigReader.readPositive(node, path, "peak", fallback.peak),
+            ConfigReader.readNonNegative(node, path, "peakDuration", fallback.peakDuration));
+    }
+
+    /**
+     * @return A new CTRE configuration, safe for the caller to change at runtime
+     */
+    public SupplyCurrentLimitConfiguration toSupplyConfiguration() {
+        return new SupplyCurrentLimitConfiguration(enabled, continuous, peak, peakDuration);
+    }
+}
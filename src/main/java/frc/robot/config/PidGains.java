@@ -0,0 +1,48 @@
+package frc.robot.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import edu.wpi.first.math.controller.PIDController;
+
+/**
+ * Immutable PID(F) gains. Controllers are never shared, every consumer creates its own with
+ * {@link #createController()}.
+ */
+public final class PidGains {
+
+    public final double kP;
+    public final double kI;
+    public final double kD;
+    public final double kF;
+
+    public PidGains(double kP, double kI, double kD) {
+        this(kP, kI, kD, 0.0);
+    }
+
+    public PidGains(double kP, double kI, double kD, double kF) {
+        if (kP < 0.0 || kI < 0.0 || kD < 0.0 || Double.isNaN(kP + kI + kD + kF)) {
+            throw new IllegalArgumentException("PID gains must be non-negative numbers");
+        }
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+        this.kF = kF;
+    }
+
+    /**
+     * @param node Object with any of kP, kI, kD and kF
+     * @param path Key of the object, for error messages
+     * @param fallback Gains used for anything the object leaves out
+     */
+    static PidGains read(JsonNode node, String path, PidGains fallback) {
+        return new PidGains(
+            ConfigReader.readNonNegative(node, path, "kP", fallback.kP),
+            ConfigReader.readNonNegative(node, path, "kI", fallback.kI),
+            ConfigReader.readNonNegative(node, path, "kD", fallback.kD),
+            ConfigReader.readDouble(node, path, "kF", fallback.kF));
+    }
+
+    public PIDController createController() {
+        return new PIDController(kP, kI, kD);
+    }
+}
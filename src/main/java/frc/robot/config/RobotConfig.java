@@ -0,0 +1,86 @@
+package frc.robot.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.lib.util.DeployProperties;
+import frc.robot.Constants;
+
+/**
+ * Configuration of the robot this code is running on, loaded once at boot. The roboRIO serial
+ * number picks a name from deploy/config/robots.properties, and deploy/config/&lt;name&gt;.json
+ * holds the values for that robot. Anything the file leaves out comes from {@link Constants}, so
+ * practice and competition robots can run the same jar.
+ *
+ * <p>A file that fails validation is reported and ignored rather than crashing the robot.
+ */
+public final class RobotConfig {
+
+    public final String name;
+    public final SwerveConfig swerve;
+    public final ShooterConfig shooter;
+    public final AutonConfig auton;
+
+    private static RobotConfig instance;
+
+    private RobotConfig(String name, JsonNode root) {
+        this.name = name;
+        this.swerve = new SwerveConfig(root.path("swerve"));
+        this.shooter = new ShooterConfig(root.path("shooter"));
+        this.auton = new AutonConfig(root.path("auton"));
+    }
+
+    /**
+     * @return Configuration built from {@link Constants} alone
+     */
+    public static RobotConfig defaults() {
+        return new RobotConfig("defaults", MissingNode.getInstance());
+    }
+
+    public static synchronized RobotConfig getInstance() {
+        if (instance == null) {
+            instance = load();
+        }
+        return instance;
+    }
+
+    /**
+     * Load a robot's config by name, for simulations and tests that have no roboRIO serial number.
+     */
+    public static RobotConfig forRobot(String name) {
+        return read(name, "robot " + name);
+    }
+
+    private static RobotConfig load() {
+        String serial = RobotController.getSerialNumber();
+        Properties robots = DeployProperties.load(Constants.Config.ROBOTS);
+        String name = robots.getProperty(serial, Constants.Config.DEFAULT_ROBOT).trim();
+        return read(name, "robot " + name + " (serial " + serial + ")");
+    }
+
+    private static RobotConfig read(String name, String description) {
+        Path path = Filesystem.getDeployDirectory().toPath().resolve(Constants.Config.DIRECTORY).resolve(name + ".json");
+        if (!Files.exists(path)) {
+            DriverStation.reportWarning("No config for " + description + ", using Constants", false);
+            return defaults();
+        }
+
+        try {
+            RobotConfig config = new RobotConfig(name, new ObjectMapper().readTree(path.toFile()));
+            System.out.println("Loaded config " + path.toString() + " for " + description);
+            return config;
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportError("Invalid config " + path.toString() + ": " + e.getMessage() + ", using Constants", e.getStackTrace());
+            return defaults();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package frc.robot.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import frc.robot.Constants;
+
+/**
+ * Immutable shooter hardware description.
+ */
+public final class ShooterConfig {
+
+    public final int motorId;
+    public final boolean inverted;      // false is counter clockwise positive, the Falcon default
+    public final PidGains gains;
+    public final CurrentLimit currentLimit;
+
+    ShooterConfig(JsonNode node) {
+        String path = "shooter";
+        this.motorId = ConfigReader.readCanId(node, path, "motorId", Constants.Shooter.SHOOTER_ID);
+        this.inverted = ConfigReader.readBoolean(node, path, "inverted", Constants.Shooter.INVERTED);
+        this.gains = PidGains.read(node.path("gains"), path + ".gains", new PidGains(
+            Constants.Shooter.kP, Constants.Shooter.kI, Constants.Shooter.kD, Constants.Shooter.kF));
+        this.currentLimit = CurrentLimit.read(node.path("currentLimit"), path + ".currentLimit", new CurrentLimit(
+            Constants.Shooter.ENABLE_CURRENT_LIMIT,
+            Constants.Shooter.CONTINUOUS_CL,
+            Constants.Shooter.PEAK_CL,
+            Constants.Shooter.PEAK_CURRENT_DURATION));
+    }
+}
@@ -0,0 +1,151 @@
+package frc.robot.config;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import frc.robot.Constants;
+import frc.robot.utils.swerve.SwerveModuleConstants;
+
+/**
+ * Immutable drivetrain hardware description. Modules are ordered front left, front right, back
+ * left, back right, matching {@link #getModuleTranslations()}.
+ */
+public final class SwerveConfig {
+
+    public static final int MODULE_COUNT = 4;
+
+    /* Gyro */
+    public final int gyroId;
+    public final boolean invertGyro;
+
+    /* Drivetrain */
+    public final double trackWidth;         // meters
+    public final double wheelBase;          // meters
+    public final double wheelDiameter;      // meters, before calibration
+    public final double driveGearRatio;
+    public final double angleGearRatio;
+    public final double openLoopRamp;       // seconds
+    public final double closedLoopRamp;     // seconds
+
+    /* Current Limiting */
+    public final CurrentLimit angleCurrentLimit;
+    public final CurrentLimit driveCurrentLimit;
+
+    /* Gains */
+    public final PidGains angleGains;
+    public final PidGains driveGains;
+    public final double driveKS;            // V
+    public final double driveKV;            // V / (m/s)
+    public final double driveKA;            // V / (m/s^2)
+
+    /* Limits */
+    public final double maxSpeed;           // m/s
+    public final double maxAngularVelocity; // rad/s
+
+    /* Neutral Modes and Inverts */
+    public final boolean angleBrake;
+    public final boolean driveBrake;
+    public final boolean driveInverted;
+    public final boolean angleInverted;
+    public final boolean canCoderInverted;
+
+    private final SwerveModuleConstants[] modules;
+
+    SwerveConfig(JsonNode node) {
+        String path = "swerve";
+        this.gyroId = ConfigReader.readCanId(node, path, "gyroId", Constants.SwerveDrivetrain.GYRO_ID);
+        this.invertGyro = ConfigReader.readBoolean(node, path, "invertGyro", Constants.SwerveDrivetrain.INVERT_GYRO);
+
+        this.trackWidth = ConfigReader.readPositive(node, path, "trackWidth", Constants.SwerveDrivetrain.TRACK_WIDTH);
+        this.wheelBase = ConfigReader.readPositive(node, path, "wheelBase", Constants.SwerveDrivetrain.WHEEL_BASE);
+        this.wheelDiameter = ConfigReader.readPositive(node, path, "wheelDiameter", Constants.SwerveDrivetrain.WHEEL_DIAMETER);
+        this.driveGearRatio = ConfigReader.readPositive(node, path, "driveGearRatio", Constants.SwerveDrivetrain.DRIVE_GEAR_RATIO);
+        this.angleGearRatio = ConfigReader.readPositive(node, path, "angleGearRatio", Constants.SwerveDrivetrain.ANGLE_GEAR_RATIO);
+        this.openLoopRamp = ConfigReader.readNonNegative(node, path, "openLoopRamp", Constants.SwerveDrivetrain.OPEN_LOOP_RAMP);
+        this.closedLoopRamp = ConfigReader.readNonNegative(node, path, "closedLoopRamp", Constants.SwerveDrivetrain.CLOSED_LOOP_RAMP);
+
+        this.angleCurrentLimit = CurrentLimit.read(node.path("angleCurrentLimit"), path + ".angleCurrentLimit", new CurrentLimit(
+            Constants.SwerveDrivetrain.ANGLE_ENABLE_CURRENT_LIMIT,
+            Constants.SwerveDrivetrain.ANGLE_CONTINUOUS_CL,
+            Constants.SwerveDrivetrain.ANGLE_PEAK_CL,
+            Constants.SwerveDrivetrain.ANGLE_PEAK_CURRENT_DURATION));
+        this.driveCurrentLimit = CurrentLimit.read(node.path("driveCurrentLimit"), path + ".driveCurrentLimit", new CurrentLimit(
+            Constants.SwerveDrivetrain.DRIVE_ENABLE_CURRENT_LIMIT,
+            Constants.SwerveDrivetrain.DRIVE_CONTINUOUS_CL,
+            Constants.SwerveDrivetrain.DRIVE_PEAK_CL,
+            Constants.SwerveDrivetrain.DRIVE_PEAK_CURRENT_DURATION));
+
+        this.angleGains = PidGains.read(node.path("angleGains"), path + ".angleGains", new PidGains(
+            Constants.SwerveDrivetrain.ANGLE_kP, Constants.SwerveDrivetrain.ANGLE_kI, Constants.SwerveDrivetrain.ANGLE_kD, Constants.SwerveDrivetrain.ANGLE_kF));
+        this.driveGains = PidGains.read(node.path("driveGains"), path + ".driveGains", new PidGains(
+            Constants.SwerveDrivetrain.DRIVE_kP, Constants.SwerveDrivetrain.DRIVE_kI, Constants.SwerveDrivetrain.DRIVE_kD, Constants.SwerveDrivetrain.DRIVE_kF));
+        JsonNode feedforward = node.path("driveFeedforward");
+        this.driveKS = ConfigReader.readNonNegative(feedforward, path + ".driveFeedforward", "kS", Constants.SwerveDrivetrain.FF_kS);
+        this.driveKV = ConfigReader.readNonNegative(feedforward, path + ".driveFeedforward", "kV", Constants.SwerveDrivetrain.FF_kV);
+        this.driveKA = ConfigReader.readNonNegative(feedforward, path + ".driveFeedforward", "kA", Constants.SwerveDrivetrain.FF_kA);
+
+        this.maxSpeed = ConfigReader.readPositive(node, path, "maxSpeed", Constants.SwerveDrivetrain.MAX_SPEED);
+        this.maxAngularVelocity = ConfigReader.readPositive(node, path, "maxAngularVelocity", Constants.SwerveDrivetrain.MAX_ANGULAR_VELOCITY);
+
+        this.angleBrake = ConfigReader.readBoolean(node, path, "angleBrake", Constants.SwerveDrivetrain.ANGLE_NEUTRAL_MODE == NeutralMode.Brake);
+        this.driveBrake = ConfigReader.readBoolean(node, path, "driveBrake", Constants.SwerveDrivetrain.DRIVE_NEUTRAL_MODE == NeutralMode.Brake);
+        this.driveInverted = ConfigReader.readBoolean(node, path, "driveInverted", Constants.SwerveDrivetrain.DRIVE_MOTOR_INVERTED);
+        this.angleInverted = ConfigReader.readBoolean(node, path, "angleInverted", Constants.SwerveDrivetrain.ANGLE_MOTOR_INVERTED);
+        this.canCoderInverted = ConfigReader.readBoolean(node, path, "canCoderInverted", Constants.SwerveDrivetrain.CAN_CODER_INVERTED);
+
+        SwerveModuleConstants[] defaults = {
+            Constants.SwerveDrivetrain.Mod0.constants,
+            Constants.SwerveDrivetrain.Mod1.constants,
+            Constants.SwerveDrivetrain.Mod2.constants,
+            Constants.SwerveDrivetrain.Mod3.constants
+        };
+        JsonNode moduleNodes = node.path("modules");
+        if (!moduleNodes.isMissingNode() && moduleNodes.size() != MODULE_COUNT) {
+            throw new IllegalArgumentException(path + ".modules must list " + MODULE_COUNT + " modules, got " + moduleNodes.size());
+        }
+        this.modules = new SwerveModuleConstants[MODULE_COUNT];
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            JsonNode module = moduleNodes.path(i);
+            String modulePath = path + ".modules[" + i + "]";
+            this.modules[i] = new SwerveModuleConstants(
+                ConfigReader.readCanId(module, modulePath, "driveMotorId", defaults[i].driveMotorID),
+                ConfigReader.readCanId(module, modulePath, "angleMotorId", defaults[i].angleMotorID),
+                ConfigReader.readCanId(module, modulePath, "canCoderId", defaults[i].cancoderID),
+                ConfigReader.readDouble(module, modulePath, "angleOffset", defaults[i].angleOffset),
+                ConfigReader.readBoolean(module, modulePath, "motionMagicSteering", defaults[i].motionMagicSteering));
+            // IDs only have to be unique per device type, so only the motors are checked against each other
+            if (!ids.add(this.modules[i].driveMotorID) || !ids.add(this.modules[i].angleMotorID)) {
+                throw new IllegalArgumentException(modulePath + " reuses a motor CAN ID");
+            }
+        }
+    }
+
+    public SwerveModuleConstants getModule(int index) {
+        return modules[index];
+    }
+
+    /**
+     * @return A new array of module positions relative to the robot center
+     */
+    public Translation2d[] getModuleTranslations() {
+        return new Translation2d[] {
+            new Translation2d( wheelBase / 2.0,  trackWidth / 2.0),
+            new Translation2d( wheelBase / 2.0, -trackWidth / 2.0),
+            new Translation2d(-wheelBase / 2.0,  trackWidth / 2.0),
+            new Translation2d(-wheelBase / 2.0, -trackWidth / 2.0)
+        };
+    }
+
+    /**
+     * @return A new kinematics object. They keep internal state, so each user gets its own
+     */
+    public SwerveDriveKinematics createKinematics() {
+        return new SwerveDriveKinematics(getModuleTranslations());
+    }
+}
@@ -0,0 +1,353 @@
+package frc.robot.sim;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants;
+import frc.robot.config.RobotConfig;
+
+/**
+ * Offline Monte Carlo search for the path following and steering gains. Every gain set follows
+ * every deploy path several times in a {@link SwerveSim} with measurement noise, pose latency and
+ * random wheel slip, spread over a fork-join pool with one simulation per worker thread. A first
+ * round samples the whole range, a second round perturbs the best sets found, and the result is
+ * ranked by tracking error and time past the path end.
+ *
+ * <p>Trial disturbances are seeded by path and trial number only, so every gain set faces exactly
+ * the same noise and the ranking compares gains rather than luck.
+ *
+ * <p>The drivetrain, limits and starting gains are those of the competition robot's deploy config.
+ *
+ * <p>Usage: GainTuner &lt;output directory&gt; [seed]
+ */
+public final class GainTuner {
+
+    /** One candidate set of gains. */
+    public static final class Gains {
+        public double translationP;     // used for both PX and PY, the drivetrain is square
+        public double translationD;
+        public double thetaP;
+        public double thetaD;
+        public double angleP;
+        public double angleD;
+    }
+
+    /** Statistics of one gain set over every path and trial. */
+    public static final class Score {
+        public Gains gains;
+        public double meanRms;
+        public double meanMaxError;
+        public double meanOvertime;
+        public double overtimeStdDev;
+        public double cost;
+    }
+
+    private static final RobotConfig CONFIG = RobotConfig.forRobot(Constants.Config.DEFAULT_ROBOT);
+    private static final ThreadLocal<SwerveSim> SIM = ThreadLocal.withInitial(() -> new SwerveSim(CONFIG.swerve));
+
+    /* Steering is modelled in the mode the front left module is configured with */
+    private static final boolean MOTION_MAGIC_STEERING = CONFIG.swerve.getModule(0).motionMagicSteering;
+
+    private GainTuner() {}
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: GainTuner <output directory> [seed]");
+            System.exit(2);
+        }
+        Path output = Paths.get(args[0]);
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : 0L;
+        Random random = new Random(seed);
+
+        List<PathPlannerTrajectory> paths = loadPaths();
+        int workers = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        System.out.println(String.format("Tuning over %d paths, %d trials each, on %d workers",
+            paths.size(), Constants.Simulation.TUNER_TRIALS, workers));
+
+        /* Round one, the current gains plus random sets across the whole range */
+        Gains[] candidates = new Gains[Constants.Simulation.TUNER_CANDIDATES + 1];
+        candidates[0] = currentGains();
+        for (int i = 1; i < candidates.length; i++) {
+            candidates[i] = randomGains(random);
+        }
+        Score[] scores = evaluateAll(pool, candidates, paths);
+        Score current = scores[0];
+
+        /* Round two, perturb the best sets found so far */
+        Score[] ranked = scores.clone();
+        Arrays.sort(ranked, (a, b) -> Double.compare(a.cost, b.cost));
+        Gains[] refined = new Gains[Constants.Simulation.TUNER_REFINE_CANDIDATES];
+        for (int i = 0; i < refined.length; i++) {
+            refined[i] = perturb(ranked[i % Constants.Simulation.TUNER_REFINE_PARENTS].gains, random);
+        }
+        Score[] refinedScores = evaluateAll(pool, refined, paths);
+        pool.shutdown();
+
+        Score[] all = Arrays.copyOf(scores, scores.length + refinedScores.length);
+        System.arraycopy(refinedScores, 0, all, scores.length, refinedScores.length);
+        Arrays.sort(all, (a, b) -> Double.compare(a.cost, b.cost));
+
+        System.out.println(header());
+        for (int i = 0; i < Math.min(10, all.length); i++) {
+            System.out.println(format(i + 1, all[i]));
+        }
+        System.out.println("Current gains:");
+        System.out.println(format(Arrays.asList(all).indexOf(current) + 1, current));
+
+        write(output, all);
+    }
+
+    private static Score[] evaluateAll(ForkJoinPool pool, Gains[] candidates, List<PathPlannerTrajectory> paths) {
+        Score[] scores = new Score[candidates.length];
+        pool.invoke(new EvaluateRange(candidates, scores, paths, 0, candidates.length));
+        return scores;
+    }
+
+    /** Splits the candidates in half until each task holds one gain set. */
+    private static final class EvaluateRange extends RecursiveAction {
+        private final Gains[] candidates;
+        private final Score[] scores;
+        private final List<PathPlannerTrajectory> paths;
+        private final int from;
+        private final int to;
+
+        EvaluateRange(Gains[] candidates, Score[] scores, List<PathPlannerTrajectory> paths, int from, int to) {
+            this.candidates = candidates;
+            this.scores = scores;
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                scores[from] = evaluate(candidates[from], paths);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EvaluateRange(candidates, scores, paths, from, middle),
+                      new EvaluateRange(candidates, scores, paths, middle, to));
+        }
+    }
+
+    private static Score evaluate(Gains gains, List<PathPlannerTrajectory> paths) {
+        SwerveSim sim = SIM.get();
+        sim.setSteeringModel(MOTION_MAGIC_STEERING, gains.angleP, gains.angleD);
+
+        double rmsSum = 0.0;
+        double maxSum = 0.0;
+        double overtimeSum = 0.0;
+        double overtimeSquares = 0.0;
+        int runs = 0;
+        double[] run = new double[3];
+
+        for (int p = 0; p < paths.size(); p++) {
+            for (int trial = 0; trial < Constants.Simulation.TUNER_TRIALS; trial++) {
+                follow(sim, paths.get(p), gains, new Random(p * 7919L + trial), run);
+                rmsSum += run[0];
+                maxSum += run[1];
+                overtimeSum += run[2];
+                overtimeSquares += run[2] * run[2];
+                runs++;
+            }
+        }
+
+        Score score = new Score();
+        score.gains = gains;
+        score.meanRms = rmsSum / runs;
+        score.meanMaxError = maxSum / runs;
+        score.meanOvertime = overtimeSum / runs;
+        score.overtimeStdDev = Math.sqrt(Math.max(0.0, overtimeSquares / runs - score.meanOvertime * score.meanOvertime));
+        score.cost = score.meanRms
+            + Constants.Simulation.TUNER_MAX_ERROR_WEIGHT * score.meanMaxError
+            + Constants.Simulation.TUNER_TIME_WEIGHT * score.meanOvertime;
+        return score;
+    }
+
+    /**
+     * Follow one path with disturbances drawn from the random source.
+     *
+     * @param result Filled with RMS error, max error and seconds past the path end
+     */
+    private static void follow(SwerveSim sim, PathPlannerTrajectory trajectory, Gains gains, Random random, double[] result) {
+        PPHolonomicDriveController controller = new PPHolonomicDriveController(
+            new PIDController(gains.translationP, 0.0, gains.translationD),
+            new PIDController(gains.translationP, 0.0, gains.translationD),
+            new PIDController(gains.thetaP, 0.0, gains.thetaD)
+        );
+
+        Pose2d start = trajectory.getInitialHolonomicPose();
+        sim.reset(start);
+        int latency = random.nextInt(Constants.Simulation.TUNER_MAX_LATENCY_LOOPS + 1);
+        Pose2d[] history = new Pose2d[Constants.Simulation.TUNER_MAX_LATENCY_LOOPS + 1];
+        Arrays.fill(history, start);
+
+        double dt = Constants.Simulation.LOOP_PERIOD;
+        double duration = trajectory.getTotalTimeSeconds();
+        double end = duration + Constants.Simulation.TUNER_FINISH_TIMEOUT;
+        double errorSquares = 0.0;
+        double maxError = 0.0;
+        int samples = 0;
+        double t = 0.0;
+
+        for (int loop = 0; t < end; loop++, t += dt) {
+            PathPlannerState reference = (PathPlannerState) trajectory.sample(Math.min(t, duration));
+
+            // The controller sees a noisy pose, possibly a few loops old
+            history[loop % history.length] = measure(sim.getPose(), random);
+            Pose2d seen = history[Math.floorMod(loop - latency, history.length)];
+            sim.drive(controller.calculate(seen, reference));
+
+            for (int i = 0; i < 4; i++) {
+                boolean slipping = random.nextDouble() < Constants.Simulation.TUNER_SLIP_PROBABILITY;
+                double traction = Constants.Simulation.TUNER_SLIP_TRACTION + random.nextDouble() * (1.0 - Constants.Simulation.TUNER_SLIP_TRACTION);
+                sim.setTraction(i, slipping ? traction : 1.0);
+            }
+            sim.step(dt);
+
+            double error = sim.getPose().getTranslation().getDistance(reference.poseMeters.getTranslation());
+            if (t <= duration) {
+                errorSquares += error * error;
+                maxError = Math.max(maxError, error);
+                samples++;
+            } else if (error < Constants.Simulation.TUNER_FINISH_TOLERANCE) {
+                break;
+            }
+        }
+
+        result[0] = Math.sqrt(errorSquares / Math.max(1, samples));
+        result[1] = maxError;
+        result[2] = Math.max(0.0, t - duration);
+    }
+
+    private static Pose2d measure(Pose2d pose, Random random) {
+        return new Pose2d(
+            pose.getX() + random.nextGaussian() * Constants.Simulation.TUNER_POSE_NOISE,
+            pose.getY() + random.nextGaussian() * Constants.Simulation.TUNER_POSE_NOISE,
+            new Rotation2d(pose.getRotation().getRadians() + random.nextGaussian() * Constants.Simulation.TUNER_HEADING_NOISE));
+    }
+
+    private static Gains currentGains() {
+        Gains gains = new Gains();
+        gains.translationP = CONFIG.auton.xGains.kP;
+        gains.translationD = CONFIG.auton.xGains.kD;
+        gains.thetaP = CONFIG.auton.thetaGains.kP;
+        gains.thetaD = CONFIG.auton.thetaGains.kD;
+        gains.angleP = CONFIG.swerve.angleGains.kP;
+        gains.angleD = CONFIG.swerve.angleGains.kD;
+        return gains;
+    }
+
+    private static Gains randomGains(Random random) {
+        Gains gains = new Gains();
+        gains.translationP = sample(Constants.Simulation.TUNER_TRANSLATION_KP, random);
+        gains.translationD = sample(Constants.Simulation.TUNER_TRANSLATION_KD, random);
+        gains.thetaP = sample(Constants.Simulation.TUNER_THETA_KP, random);
+        gains.thetaD = sample(Constants.Simulation.TUNER_THETA_KD, random);
+        gains.angleP = sample(Constants.Simulation.TUNER_ANGLE_KP, random);
+        gains.angleD = sample(Constants.Simulation.TUNER_ANGLE_KD, random);
+        return gains;
+    }
+
+    private static Gains perturb(Gains parent, Random random) {
+        Gains gains = new Gains();
+        gains.translationP = nudge(parent.translationP, Constants.Simulation.TUNER_TRANSLATION_KP, random);
+        gains.translationD = nudge(parent.translationD, Constants.Simulation.TUNER_TRANSLATION_KD, random);
+        gains.thetaP = nudge(parent.thetaP, Constants.Simulation.TUNER_THETA_KP, random);
+        gains.thetaD = nudge(parent.thetaD, Constants.Simulation.TUNER_THETA_KD, random);
+        gains.angleP = nudge(parent.angleP, Constants.Simulation.TUNER_ANGLE_KP, random);
+        gains.angleD = nudge(parent.angleD, Constants.Simulation.TUNER_ANGLE_KD, random);
+        return gains;
+    }
+
+    private static double sample(double[] range, Random random) {
+        return range[0] + random.nextDouble() * (range[1] - range[0]);
+    }
+
+    private static double nudge(double value, double[] range, Random random) {
+        // Gains that sit at zero still need room to move
+        double spread = Constants.Simulation.TUNER_REFINE_SPREAD * Math.max(Math.abs(value), 0.1 * (range[1] - range[0]));
+        double nudged = value + (2.0 * random.nextDouble() - 1.0) * spread;
+        return Math.max(range[0], Math.min(range[1], nudged));
+    }
+
+    private static List<PathPlannerTrajectory> loadPaths() throws IOException {
+        Path directory = Filesystem.getDeployDirectory().toPath().resolve("pathplanner");
+        PathConstraints constraints = new PathConstraints(CONFIG.auton.maxSpeed, CONFIG.auton.maxAcceleration);
+        List<PathPlannerTrajectory> paths = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.toString().endsWith(".path")).sorted().forEach(path ->
+                paths.add(PathPlanner.loadPath(path.getFileName().toString().replace(".path", ""), constraints)));
+        }
+        return paths;
+    }
+
+    private static String header() {
+        return String.format("%4s %8s %8s %8s %15s   %7s %7s %7s %7s %7s %7s",
+            "rank", "cost", "rms(m)", "max(m)", "overtime(s)", "xy kP", "xy kD", "th kP", "th kD", "ang kP", "ang kD");
+    }
+
+    private static String format(int rank, Score score) {
+        Gains g = score.gains;
+        return String.format("%4d %8.4f %8.4f %8.4f %7.3f +-%5.3f   %7.3f %7.3f %7.3f %7.3f %7.3f %7.3f",
+            rank, score.cost, score.meanRms, score.meanMaxError, score.meanOvertime, score.overtimeStdDev,
+            g.translationP, g.translationD, g.thetaP, g.thetaD, g.angleP, g.angleD);
+    }
+
+    /**
+     * Write the full ranking as CSV, and the best set as a gains file that can be copied to
+     * deploy/tuning/gains.properties. Keys match the names in {@link frc.robot.Tuning}.
+     */
+    private static void write(Path output, Score[] ranked) throws IOException {
+        Files.createDirectories(output);
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(output.resolve("ranked-gains.csv")))) {
+            csv.println("rank,cost,rms,maxError,overtime,overtimeStdDev,translationP,translationD,thetaP,thetaD,angleP,angleD");
+            for (int i = 0; i < ranked.length; i++) {
+                Score s = ranked[i];
+                Gains g = s.gains;
+                csv.println(String.format("%d,%.5f,%.5f,%.5f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f",
+                    i + 1, s.cost, s.meanRms, s.meanMaxError, s.meanOvertime, s.overtimeStdDev,
+                    g.translationP, g.translationD, g.thetaP, g.thetaD, g.angleP, g.angleD));
+            }
+        }
+
+        Gains best = ranked[0].gains;
+        Properties gains = new Properties();
+        gains.setProperty("Auton PX kP", Double.toString(best.translationP));
+        gains.setProperty("Auton PX kD", Double.toString(best.translationD));
+        gains.setProperty("Auton PY kP", Double.toString(best.translationP));
+        gains.setProperty("Auton PY kD", Double.toString(best.translationD));
+        gains.setProperty("Auton Theta kP", Double.toString(best.thetaP));
+        gains.setProperty("Auton Theta kD", Double.toString(best.thetaD));
+        gains.setProperty("Angle kP", Double.toString(best.angleP));
+        gains.setProperty("Angle kD", Double.toString(best.angleD));
+        try (OutputStream out = Files.newOutputStream(output.resolve("gains.properties"))) {
+            gains.store(out, "Best gains from GainTuner, copy to src/main/deploy/tuning/gains.properties");
+        }
+        System.out.println("Wrote " + output.toString());
+    }
+}
@@ -0,0 +1,438 @@
+package frc.robot.sim;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants;
+import frc.robot.config.RobotConfig;
+import frc.robot.commands.drivetrain.SwerveTeleop;
+import frc.robot.subsystems.SwerveDrivetrain;
+import frc.robot.utils.AutoRoutineLoader;
+
+/**
+ * Plays scripted scenarios with several robots sharing one field, for trying defense, shooting on
+ * the move and path timing under contact. Every robot is a real {@link SwerveDrivetrain} on a
+ * {@link SwerveSim}, through {@link SimGyroIO} and {@link SimModuleIO}. Teleop robots run
+ * {@link SwerveTeleop} on a {@link ScriptedController} of their own, fed scripted or recorded
+ * stick inputs. Path robots run the path step of an auto routine, built by
+ * {@link AutoRoutineLoader} from the same keys a routine file uses, so it stops at the path's
+ * end like it does on the robot. Robots are bumper sized circles of equal mass: overlapping
+ * robots are pushed apart evenly and the field walls stop them, so a robot driving into another
+ * one shoves it. Pushes move the model only, so odometry drifts like it would on the field.
+ *
+ * <p>All robots share the command scheduler and the simulated clock, which is paused and stepped
+ * one loop at a time. Scenario files therefore run one after another.
+ *
+ * <p>Exits non-zero if a robot misses a finish time or shot limit its scenario sets.
+ *
+ * <p>Usage: ScenarioSim &lt;scenario file or directory&gt;...
+ */
+public final class ScenarioSim {
+
+    /** Outcome for one robot in one scenario. */
+    public static final class Result {
+        public String scenario;
+        public String robot;
+        public double distance;         // meters driven
+        public int contacts;            // separate times it touched another robot
+        public double contactTime;      // seconds spent touching another robot
+        public double maxImpact;        // meters per second closing speed at first touch
+        public double finishTime = Double.NaN;  // seconds until a path robot reached its path end
+        public double maxMiss;          // meters the worst shot drifted by the robot's velocity
+        public int shots;
+        public boolean passed = true;
+    }
+
+    /** A stick position held from its time until the next one. */
+    private static final class Input {
+        final double time;
+        final double forward;
+        final double left;
+        final double rotate;
+
+        Input(double time, double forward, double left, double rotate) {
+            this.time = time;
+            this.forward = forward;
+            this.left = left;
+            this.rotate = rotate;
+        }
+    }
+
+    private static final class Shot {
+        final double time;
+        final double targetX;
+        final double targetY;
+        final double speed;     // meters per second the ball leaves at
+        boolean taken;
+
+        Shot(double time, double targetX, double targetY, double speed) {
+            this.time = time;
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.speed = speed;
+        }
+    }
+
+    private static final class SimRobot {
+        final Result result = new Result();
+        final SwerveSim sim = new SwerveSim(CONFIG.swerve);
+        final ScriptedController controller = new ScriptedController();
+        final List<Input> inputs = new ArrayList<>();
+        final List<Shot> shots = new ArrayList<>();
+        int inputIndex = 0;
+
+        SwerveDrivetrain drivetrain;
+        PathPlannerTrajectory trajectory;
+        Command path;
+        boolean pathScheduled;
+        double pathStart;
+        double maxFinishTime = Double.NaN;
+        double maxMiss = Double.NaN;
+
+        Pose2d previous;
+        double vx;      // field relative, meters per second
+        double vy;
+        boolean touching;
+        boolean touched;
+    }
+
+    private static final Input NO_INPUT = new Input(0.0, 0.0, 0.0, 0.0);
+
+    private static final RobotConfig CONFIG = RobotConfig.forRobot(Constants.Config.DEFAULT_ROBOT);
+
+    private ScenarioSim() {}
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ScenarioSim <scenario file or directory>...");
+            System.exit(2);
+        }
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            files.addAll(listScenarios(Paths.get(arg)));
+        }
+
+        HAL.initialize(500, 0);
+        SimHooks.pauseTiming();
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        long start = System.nanoTime();
+        boolean failed = false;
+        for (Path file : files) {
+            try {
+                for (Result result : run(file)) {
+                    System.out.println(format(result));
+                    failed |= !result.passed;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Scenario " + file + " failed to run: " + e);
+                failed = true;
+            }
+        }
+        System.out.println(String.format("%d scenarios in %.0f ms", files.size(), (System.nanoTime() - start) / 1e6));
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static List<Path> listScenarios(Path path) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> listing = Files.list(path)) {
+                listing.filter(file -> file.toString().endsWith(".json")).sorted().forEach(files::add);
+            }
+        } else {
+            files.add(path);
+        }
+        return files;
+    }
+
+    /**
+     * Simulate one scenario file from start to end. The HAL must be initialized with its timing
+     * paused and the driver station enabled, like {@link #main} does.
+     */
+    public static List<Result> run(Path file) throws IOException {
+        JsonNode scenario = new ObjectMapper().readTree(file.toFile());
+        String name = file.getFileName().toString().replace(".json", "");
+        double duration = scenario.path("duration").asDouble(Constants.Simulation.SCENARIO_DURATION);
+
+        List<SimRobot> robots = new ArrayList<>();
+        try {
+            for (JsonNode node : scenario.path("robots")) {
+                SimRobot robot = load(node, file.getParent());
+                robot.result.scenario = name;
+                robots.add(robot);
+            }
+            if (robots.isEmpty()) {
+                throw new IllegalArgumentException(name + " has no robots");
+            }
+            simulate(robots, duration);
+        } finally {
+            CommandScheduler scheduler = CommandScheduler.getInstance();
+            scheduler.cancelAll();
+            for (SimRobot robot : robots) {
+                scheduler.unregisterSubsystem(robot.drivetrain);
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (SimRobot robot : robots) {
+            Result result = robot.result;
+            if (!Double.isNaN(robot.maxFinishTime) && !(result.finishTime <= robot.maxFinishTime)) {
+                result.passed = false;
+            }
+            if (!Double.isNaN(robot.maxMiss) && result.maxMiss > robot.maxMiss) {
+                result.passed = false;
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Run the robot loop like TimedRobot does, sensors first and then the scheduler, and step the
+     * models and the clock by one loop after it.
+     */
+    private static void simulate(List<SimRobot> robots, double duration) {
+        double dt = Constants.Simulation.LOOP_PERIOD;
+        for (double t = 0.0; t < duration; t += dt) {
+            for (SimRobot robot : robots) {
+                command(robot, t);
+                robot.controller.update();
+                robot.drivetrain.readSensors();
+            }
+            CommandScheduler.getInstance().run();
+            for (SimRobot robot : robots) {
+                robot.previous = robot.sim.getPose();
+                robot.sim.step(dt);
+            }
+            SimHooks.stepTiming(dt);
+            resolveContacts(robots);
+
+            for (SimRobot robot : robots) {
+                Pose2d pose = robot.sim.getPose();
+                robot.vx = (pose.getX() - robot.previous.getX()) / dt;
+                robot.vy = (pose.getY() - robot.previous.getY()) / dt;
+                robot.result.distance += pose.getTranslation().getDistance(robot.previous.getTranslation());
+                if (robot.touching) {
+                    robot.result.contactTime += dt;
+                }
+                robot.touched = robot.touching;
+                robot.touching = false;
+                shoot(robot, t);
+                checkFinish(robot, t);
+            }
+        }
+    }
+
+    private static SimRobot load(JsonNode node, Path directory) throws IOException {
+        SimRobot robot = new SimRobot();
+        robot.result.robot = node.path("name").asText("robot");
+        robot.maxFinishTime = node.path("maxFinishTime").asDouble(Double.NaN);
+        robot.maxMiss = node.path("maxMiss").asDouble(Double.NaN);
+
+        Pose2d start = new Pose2d();
+        if (node.has("path")) {
+            String path = node.get("path").asText();
+            robot.trajectory = PathPlanner.loadPath(path, new PathConstraints(
+                node.path("maxSpeed").asDouble(CONFIG.auton.maxSpeed),
+                node.path("maxAcceleration").asDouble(CONFIG.auton.maxAcceleration)));
+            if (robot.trajectory == null) {
+                throw new IllegalArgumentException("Unable to load path " + path);
+            }
+            robot.pathStart = node.path("start").asDouble(0.0);
+            start = robot.trajectory.getInitialHolonomicPose();
+        }
+        JsonNode pose = node.path("pose");
+        if (pose.size() == 3) {
+            start = new Pose2d(pose.get(0).asDouble(), pose.get(1).asDouble(), Rotation2d.fromDegrees(pose.get(2).asDouble()));
+        }
+        robot.sim.reset(start);
+        robot.previous = start;
+
+        // The modules seed from the model, so it is placed first
+        robot.drivetrain = new SwerveDrivetrain(CONFIG.swerve, new SimGyroIO(robot.sim, CONFIG.swerve.invertGyro),
+            SimModuleIO.create(robot.sim, CONFIG.swerve));
+        robot.drivetrain.getHeading().reset(start.getRotation().getDegrees());
+        robot.drivetrain.readSensors();
+        robot.drivetrain.resetOdometry(start);
+        if (robot.trajectory != null) {
+            robot.path = new AutoRoutineLoader(robot.drivetrain, CONFIG.auton, Collections.emptyMap()).buildStep(node);
+        } else {
+            robot.drivetrain.setDefaultCommand(new SwerveTeleop(robot.drivetrain, robot.controller,
+                node.path("fieldRelative").asBoolean(true), true));
+        }
+
+        for (JsonNode input : node.path("inputs")) {
+            robot.inputs.add(new Input(input.path("time").asDouble(), input.path("forward").asDouble(),
+                input.path("left").asDouble(), input.path("rotate").asDouble()));
+        }
+        if (node.has("recording")) {
+            robot.inputs.addAll(readRecording(directory.resolve(node.get("recording").asText())));
+        }
+        robot.inputs.sort((a, b) -> Double.compare(a.time, b.time));
+
+        for (JsonNode shot : node.path("shots")) {
+            JsonNode target = shot.path("target");
+            robot.shots.add(new Shot(shot.path("time").asDouble(), target.path(0).asDouble(), target.path(1).asDouble(),
+                shot.path("speed").asDouble(Constants.Simulation.SCENARIO_SHOT_SPEED)));
+        }
+        return robot;
+    }
+
+    /**
+     * Recorded driver inputs, one "time,forward,left,rotate" line per sample. Lines that do not
+     * start with a number, like a header, are skipped.
+     */
+    private static List<Input> readRecording(Path file) throws IOException {
+        List<Input> inputs = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            String[] fields = line.split(",");
+            if (fields.length < 4 || !fields[0].trim().matches("-?[0-9.]+")) {
+                continue;
+            }
+            inputs.add(new Input(Double.parseDouble(fields[0].trim()), Double.parseDouble(fields[1].trim()),
+                Double.parseDouble(fields[2].trim()), Double.parseDouble(fields[3].trim())));
+        }
+        return inputs;
+    }
+
+    /**
+     * Start the path when its time comes, or move the sticks to the input for this time.
+     */
+    private static void command(SimRobot robot, double t) {
+        if (robot.path != null) {
+            if (t >= robot.pathStart && !robot.pathScheduled) {
+                robot.path.schedule();
+                robot.pathScheduled = true;
+            }
+            return;
+        }
+
+        while (robot.inputIndex + 1 < robot.inputs.size() && robot.inputs.get(robot.inputIndex + 1).time <= t) {
+            robot.inputIndex++;
+        }
+        Input input = (robot.inputs.isEmpty() || robot.inputs.get(robot.inputIndex).time > t)
+            ? NO_INPUT : robot.inputs.get(robot.inputIndex);
+
+        // SwerveTeleop drives forward on a pulled back stick, like on an Xbox controller
+        robot.controller.setAxis(1, -input.forward);
+        robot.controller.setAxis(0, -input.left);
+        robot.controller.setAxis(2, -input.rotate);
+    }
+
+    /**
+     * Push overlapping robots apart along the line between their centers, half each, then keep
+     * every robot inside the field walls.
+     */
+    private static void resolveContacts(List<SimRobot> robots) {
+        double radius = Constants.Simulation.ROBOT_RADIUS;
+        double dt = Constants.Simulation.LOOP_PERIOD;
+        for (int i = 0; i < robots.size(); i++) {
+            for (int j = i + 1; j < robots.size(); j++) {
+                SimRobot a = robots.get(i);
+                SimRobot b = robots.get(j);
+                Pose2d pa = a.sim.getPose();
+                Pose2d pb = b.sim.getPose();
+                double dx = pb.getX() - pa.getX();
+                double dy = pb.getY() - pa.getY();
+                double distance = Math.hypot(dx, dy);
+                double overlap = 2.0 * radius - distance;
+                if (overlap <= 0.0) {
+                    continue;
+                }
+                double nx = (distance > 1e-9) ? dx / distance : 1.0;
+                double ny = (distance > 1e-9) ? dy / distance : 0.0;
+
+                // Closing speed this step, before the push
+                double closing = ((pa.getX() - a.previous.getX()) - (pb.getX() - b.previous.getX())) / dt * nx
+                    + ((pa.getY() - a.previous.getY()) - (pb.getY() - b.previous.getY())) / dt * ny;
+                touch(a, closing);
+                touch(b, closing);
+
+                double push = overlap / 2.0;
+                a.sim.setPose(new Pose2d(pa.getX() - nx * push, pa.getY() - ny * push, pa.getRotation()));
+                b.sim.setPose(new Pose2d(pb.getX() + nx * push, pb.getY() + ny * push, pb.getRotation()));
+            }
+        }
+
+        for (SimRobot robot : robots) {
+            Pose2d pose = robot.sim.getPose();
+            double x = Math.max(radius, Math.min(Constants.Simulation.FIELD_LENGTH - radius, pose.getX()));
+            double y = Math.max(radius, Math.min(Constants.Simulation.FIELD_WIDTH - radius, pose.getY()));
+            if (x != pose.getX() || y != pose.getY()) {
+                robot.sim.setPose(new Pose2d(x, y, pose.getRotation()));
+            }
+        }
+    }
+
+    private static void touch(SimRobot robot, double closing) {
+        if (!robot.touched && !robot.touching) {
+            robot.result.contacts++;
+            robot.result.maxImpact = Math.max(robot.result.maxImpact, closing);
+        }
+        robot.touching = true;
+    }
+
+    /**
+     * A ball aimed straight at the target also carries the robot's velocity, and drifts by that
+     * velocity over its flight.
+     */
+    private static void shoot(SimRobot robot, double t) {
+        for (Shot shot : robot.shots) {
+            if (shot.taken || t < shot.time) {
+                continue;
+            }
+            shot.taken = true;
+            Pose2d pose = robot.sim.getPose();
+            double flight = Math.hypot(shot.targetX - pose.getX(), shot.targetY - pose.getY()) / shot.speed;
+            double miss = Math.hypot(robot.vx, robot.vy) * flight;
+            robot.result.shots++;
+            robot.result.maxMiss = Math.max(robot.result.maxMiss, miss);
+        }
+    }
+
+    private static void checkFinish(SimRobot robot, double t) {
+        if (robot.trajectory == null || !Double.isNaN(robot.result.finishTime)) {
+            return;
+        }
+        double pathTime = t - robot.pathStart;
+        if (pathTime < robot.trajectory.getTotalTimeSeconds()) {
+            return;
+        }
+        Pose2d end = robot.trajectory.getEndState().poseMeters;
+        if (robot.sim.getPose().getTranslation().getDistance(end.getTranslation()) < Constants.Simulation.TUNER_FINISH_TOLERANCE) {
+            robot.result.finishTime = pathTime;
+        }
+    }
+
+    private static String format(Result result) {
+        return String.format("%-16s %-12s %s  distance %5.1f m  contacts %2d  contact %5.2f s  impact %4.2f m/s  finish %6.2f s  shots %d  worst miss %4.2f m",
+            result.scenario, result.robot, result.passed ? "ok    " : "FAILED",
+            result.distance, result.contacts, result.contactTime, result.maxImpact,
+            result.finishTime, result.shots, result.maxMiss);
+    }
+}
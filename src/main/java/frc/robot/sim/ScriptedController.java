@@ -0,0 +1,37 @@
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.lib.util.ControllerSnapshot;
+
+/**
+ * A controller whose sticks and buttons are set by a simulation instead of the driver station, so
+ * every simulated robot has inputs of its own.
+ */
+public class ScriptedController extends ControllerSnapshot {
+
+    private final double[] axes = new double[DriverStation.kMaxJoystickAxes];
+    private int buttons;
+
+    public ScriptedController() {
+        super(-1);
+    }
+
+    public void setAxis(int axis, double value) {
+        axes[axis] = value;
+    }
+
+    public void setButton(int button, boolean down) {
+        int mask = 1 << (button - 1);
+        buttons = down ? (buttons | mask) : (buttons & ~mask);
+    }
+
+    @Override
+    protected void readAxes(double[] axes) {
+        System.arraycopy(this.axes, 0, axes, 0, axes.length);
+    }
+
+    @Override
+    protected int readButtons() {
+        return buttons;
+    }
+}
@@ -0,0 +1,43 @@
+package frc.robot.sim;
+
+import frc.robot.utils.swerve.GyroIO;
+
+/**
+ * A gyro that reads the heading and acceleration of a {@link SwerveSim}, with no noise or drift.
+ * Yaw is reported the way the real gyro is mounted, so GyroHeading's inversion undoes it.
+ */
+public class SimGyroIO implements GyroIO {
+
+    private static final double GRAVITY = 9.80665;
+
+    private final SwerveSim sim;
+    private final double sign;
+    private double offset;      // degrees, set by setYaw
+
+    public SimGyroIO(SwerveSim sim, boolean inverted) {
+        this.sim = sim;
+        this.sign = inverted ? -1.0 : 1.0;
+    }
+
+    @Override
+    public double getYaw() {
+        return sign * Math.toDegrees(sim.getYaw()) + offset;
+    }
+
+    @Override
+    public double getYawRate() {
+        return sign * Math.toDegrees(sim.getSpeeds().omegaRadiansPerSecond);
+    }
+
+    @Override
+    public void setYaw(double degrees) {
+        offset = degrees - sign * Math.toDegrees(sim.getYaw());
+    }
+
+    @Override
+    public void getAcceleration(double[] acceleration) {
+        acceleration[0] = sim.getAccelerationX();
+        acceleration[1] = sim.getAccelerationY();
+        acceleration[2] = GRAVITY;
+    }
+}
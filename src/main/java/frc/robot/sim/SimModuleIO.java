@@ -0,0 +1,163 @@
+package frc.robot.sim;
+
+import java.util.Properties;
+
+import com.ctre.phoenix.ErrorCode;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.config.SwerveConfig;
+import frc.robot.utils.swerve.ModuleIO;
+import frc.robot.utils.swerve.SwerveCalibration;
+
+/**
+ * One module of a {@link SwerveSim}, standing in for the Talons and CANCoder. Drive requests
+ * become a wheel speed and angle requests a steering target. The wheel and the absolute encoder
+ * match the calibration SwerveModule loads, so odometry only drifts by what the model adds, like
+ * slip.
+ *
+ * <p>Gains, current limits and open loop steering only matter to the Talons and are ignored. The
+ * model steers at its fixed rate or with its {@link SteeringSim} gains, and draws no current.
+ */
+public class SimModuleIO implements ModuleIO {
+
+    private final SwerveSim sim;
+    private final int module;
+    private final SwerveConfig config;
+    private final double wheelCircumference;
+    private final double absoluteOffset;    // degrees, the CANCoder reading with the module straight
+
+    private double angleOffset;             // degrees the integrated sensor reads over the model
+    private double speed;                   // m/s
+    private double angle;                   // degrees at the model
+
+    public SimModuleIO(SwerveSim sim, int module, SwerveConfig config) {
+        this.sim = sim;
+        this.module = module;
+        this.config = config;
+        Properties calibration = SwerveCalibration.load();
+        this.wheelCircumference = SwerveCalibration.getWheelDiameter(calibration, config.wheelDiameter) * Math.PI;
+        this.absoluteOffset = SwerveCalibration.getAngleOffset(calibration, module, config.getModule(module).angleOffset);
+        this.angle = Math.toDegrees(sim.getModuleAngle(module));
+    }
+
+    /**
+     * @return All four modules of the model
+     */
+    public static ModuleIO[] create(SwerveSim sim, SwerveConfig config) {
+        ModuleIO[] modules = new ModuleIO[4];
+        for (int i = 0; i < modules.length; i++) {
+            modules[i] = new SimModuleIO(sim, i, config);
+        }
+        return modules;
+    }
+
+    private void command() {
+        sim.setModuleCommand(module, speed, Math.toRadians(angle));
+    }
+
+    /* Sensors */
+    @Override
+    public double getDriveRotations() {
+        return sim.getModuleDistance(module) / wheelCircumference;
+    }
+
+    @Override
+    public double getDriveVelocity() {
+        return sim.getModuleSpeed(module) / wheelCircumference;
+    }
+
+    @Override
+    public double getAngle() {
+        return Math.toDegrees(sim.getModuleAngle(module)) + angleOffset;
+    }
+
+    @Override
+    public double getAngleVelocity() {
+        return Math.toDegrees(sim.getModuleAngleRate(module));
+    }
+
+    @Override
+    public double getAbsoluteAngle() {
+        double degrees = (Math.toDegrees(sim.getModuleAngle(module)) + absoluteOffset) % 360.0;
+        return (degrees < 0.0) ? degrees + 360.0 : degrees;
+    }
+
+    @Override
+    public void seedAngle(double degrees) {
+        angleOffset = degrees - Math.toDegrees(sim.getModuleAngle(module));
+    }
+
+    @Override
+    public ErrorCode getAbsoluteEncoderError() {
+        return ErrorCode.OK;
+    }
+
+    @Override
+    public double getAbsoluteEncoderTimestamp() {
+        return Timer.getFPGATimestamp();
+    }
+
+    @Override
+    public boolean hasDeviceReset() {
+        return false;
+    }
+
+    /* Outputs */
+    @Override
+    public void setDriveOpenLoop(double percent) {
+        // SwerveModule scales open loop output by the max speed
+        speed = percent * config.maxSpeed;
+        command();
+    }
+
+    @Override
+    public void setDriveVelocity(double rotationsPerSecond, double feedforward) {
+        speed = rotationsPerSecond * wheelCircumference;
+        command();
+    }
+
+    @Override
+    public void setAngle(double degrees) {
+        angle = degrees - angleOffset;
+        command();
+    }
+
+    @Override
+    public void setAngleOpenLoop(double percent) {
+        // Hold where the module is, there is no steering voltage model
+        angle = Math.toDegrees(sim.getModuleAngle(module));
+        command();
+    }
+
+    @Override
+    public void setAngleKP(double kP) {}
+
+    @Override
+    public void setAngleKD(double kD) {}
+
+    @Override
+    public void setDriveKP(double kP) {}
+
+    @Override
+    public void setDriveSupplyCurrentLimit(double amps) {}
+
+    @Override
+    public double getDriveSupplyCurrent() {
+        return 0.0;
+    }
+
+    @Override
+    public double getDriveStatorCurrent() {
+        return 0.0;
+    }
+
+    @Override
+    public double getAngleSupplyCurrent() {
+        return 0.0;
+    }
+
+    @Override
+    public double getAngleStatorCurrent() {
+        return 0.0;
+    }
+}
@@ -0,0 +1,56 @@
+package frc.robot.sim;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+
+/**
+ * Open loop voltage step of a motor spinning a free inertia, like a flywheel or a drive wheel with
+ * the robot up on blocks. Friction is taken as the motor's free current, so the final speed and
+ * current are what the motor datasheet promises at that voltage.
+ */
+public final class SpinUpSim {
+
+    /** Response to one voltage step. */
+    public static final class Result {
+        public double settleTime;   // seconds until the speed stays inside the tolerance
+        public double speed;        // final speed of the mechanism, radians per second
+        public double current;      // final stator current, amps
+    }
+
+    private static final double PERIOD = 0.0001;
+
+    private SpinUpSim() {}
+
+    /**
+     * @param gearing Motor rotations per mechanism rotation
+     * @param inertia kg m^2 at the mechanism, including the reflected rotor
+     * @param volts Step applied from rest
+     * @param duration Seconds to simulate
+     * @param tolerance Fraction of the final speed that counts as settled
+     */
+    public static Result stepResponse(DCMotor motor, double gearing, double inertia, double volts, double duration, double tolerance) {
+        int steps = (int) Math.round(duration / PERIOD);
+        double[] speeds = new double[steps];
+        double speed = 0.0;
+        double current = 0.0;
+        for (int i = 0; i < steps; i++) {
+            current = motor.getCurrent(speed * gearing, volts);
+            double friction = Math.copySign(motor.freeCurrentAmps, speed);
+            if (speed == 0.0 && Math.abs(current) <= motor.freeCurrentAmps) {
+                friction = current;     // not enough torque to break free yet
+            }
+            speed += gearing * motor.KtNMPerAmp * (current - friction) / inertia * PERIOD;
+            speeds[i] = speed;
+        }
+
+        Result result = new Result();
+        result.speed = speed;
+        result.current = current;
+        double band = Math.abs(speed) * tolerance;
+        for (int i = 0; i < steps; i++) {
+            if (Math.abs(speeds[i] - speed) > band) {
+                result.settleTime = (i + 1) * PERIOD;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,178 @@
+package frc.robot.sim;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.lib.math.Conversions;
+import frc.robot.Constants;
+import frc.robot.config.RobotConfig;
+import frc.robot.config.SwerveConfig;
+
+/**
+ * Compares the two steering modes a module can be configured with, plain position control and
+ * Motion Magic, on a model of one steering Falcon. The Talon closed loop runs at 1 kHz while the
+ * RIO only changes the target every 20 ms, like on the robot.
+ *
+ * <p>Usage: SteeringSim [robot name]
+ */
+public final class SteeringSim {
+
+    /** Response of one steering mode. */
+    public static final class Result {
+        public double settleTime;       // seconds until the error stays inside the tolerance
+        public double overshoot;        // degrees past the target
+        public double trackingRms;      // degrees RMS while following the swept target
+    }
+
+    private static final DCMotor MOTOR = DCMotor.getFalcon500(1);
+    private static final double TALON_PERIOD = 0.001;
+    private static final int PLANT_SUBSTEPS = 10;
+
+    private final double gearing;
+    private final double countsPerDegree;
+    private final boolean motionMagic;
+    private final double kP;
+    private final double kD;
+
+    /* Mechanism state at the module, degrees and degrees per second */
+    private double position;
+    private double velocity;
+
+    /* Talon state, in degrees at the module */
+    private double target;
+    private TrapezoidProfile.State reference = new TrapezoidProfile.State();
+    private double lastError;
+
+    /**
+     * @param gearing Angle motor rotations per module rotation
+     */
+    public SteeringSim(double gearing, boolean motionMagic, double kP, double kD) {
+        this.gearing = gearing;
+        this.countsPerDegree = Conversions.degreesToFalcon(1.0, gearing);
+        this.motionMagic = motionMagic;
+        this.kP = kP;
+        this.kD = kD;
+    }
+
+    public void reset(double degrees) {
+        this.position = degrees;
+        this.velocity = 0.0;
+        this.target = degrees;
+        this.reference = new TrapezoidProfile.State(degrees, 0.0);
+        this.lastError = 0.0;
+    }
+
+    public void setTarget(double degrees) {
+        this.target = degrees;
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    /**
+     * Run one Talon control period.
+     */
+    public void step() {
+        double feedforward = 0.0;
+        if (motionMagic) {
+            // Motion Magic continues from its current profile point when the target moves
+            TrapezoidProfile profile = new TrapezoidProfile(
+                new TrapezoidProfile.Constraints(Constants.SwerveDrivetrain.ANGLE_MOTION_MAGIC_CRUISE, Constants.SwerveDrivetrain.ANGLE_MOTION_MAGIC_ACCEL),
+                new TrapezoidProfile.State(target, 0.0),
+                reference);
+            reference = profile.calculate(TALON_PERIOD);
+            feedforward = Constants.SwerveDrivetrain.ANGLE_MOTION_MAGIC_kF * reference.velocity * countsPerDegree / 10.0;
+        } else {
+            reference = new TrapezoidProfile.State(target, 0.0);
+        }
+
+        // Talon units: error in counts, kD on the change per 1 ms loop, output out of 1023
+        double error = (reference.position - position) * countsPerDegree;
+        double output = kP * error + kD * (error - lastError) + feedforward;
+        lastError = error;
+        double volts = Math.max(-1023.0, Math.min(1023.0, output)) / 1023.0 * MOTOR.nominalVoltageVolts;
+
+        double dt = TALON_PERIOD / PLANT_SUBSTEPS;
+        for (int i = 0; i < PLANT_SUBSTEPS; i++) {
+            double motorSpeed = Math.toRadians(velocity) * gearing;
+            double current = MOTOR.getCurrent(motorSpeed, volts);
+            double acceleration = gearing * MOTOR.KtNMPerAmp * current / Constants.Simulation.STEER_INERTIA;
+            velocity += Math.toDegrees(acceleration) * dt;
+            position += velocity * dt;
+        }
+    }
+
+    /**
+     * Run the Talon loop for a length of time, rounded to whole control periods.
+     */
+    public void advance(double seconds) {
+        int steps = (int) Math.round(seconds / TALON_PERIOD);
+        for (int i = 0; i < steps; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Step the target once and measure how long the module takes to settle.
+     *
+     * @param config Drivetrain whose angle gearing and gains are modelled
+     * @param degrees Size of the step, at most 90 since modules never turn further
+     */
+    public static Result stepResponse(SwerveConfig config, boolean motionMagic, double degrees) {
+        SteeringSim sim = new SteeringSim(config.angleGearRatio, motionMagic, config.angleGains.kP, config.angleGains.kD);
+        sim.reset(0.0);
+        sim.setTarget(degrees);
+
+        Result result = new Result();
+        int steps = (int) Math.round(Constants.Simulation.STEER_DURATION / TALON_PERIOD);
+        for (int i = 1; i <= steps; i++) {
+            sim.step();
+            double error = sim.getPosition() - degrees;
+            result.overshoot = Math.max(result.overshoot, error);
+            if (Math.abs(error) > Constants.Simulation.STEER_SETTLE_TOLERANCE) {
+                result.settleTime = i * TALON_PERIOD;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Follow a swept target that the RIO updates every loop, like steering during a curved path.
+     */
+    public static Result tracking(SwerveConfig config, boolean motionMagic) {
+        SteeringSim sim = new SteeringSim(config.angleGearRatio, motionMagic, config.angleGains.kP, config.angleGains.kD);
+        sim.reset(0.0);
+
+        Result result = new Result();
+        int steps = (int) Math.round(Constants.Simulation.STEER_DURATION / TALON_PERIOD);
+        int stepsPerLoop = (int) Math.round(Constants.Simulation.LOOP_PERIOD / TALON_PERIOD);
+        double errorSquares = 0.0;
+        for (int i = 0; i < steps; i++) {
+            double t = i * TALON_PERIOD;
+            double wanted = Constants.Simulation.STEER_TRACKING_AMPLITUDE * Math.sin(2.0 * Math.PI * Constants.Simulation.STEER_TRACKING_FREQUENCY * t);
+            if (i % stepsPerLoop == 0) {
+                sim.setTarget(wanted);
+            }
+            sim.step();
+            double error = sim.getPosition() - wanted;
+            errorSquares += error * error;
+        }
+        result.trackingRms = Math.sqrt(errorSquares / steps);
+        return result;
+    }
+
+    public static void main(String... args) {
+        SwerveConfig config = RobotConfig.forRobot((args.length > 0) ? args[0] : Constants.Config.DEFAULT_ROBOT).swerve;
+        double[] steps = {10.0, 30.0, 60.0, 90.0};
+        System.out.println(String.format("Steering with kP %.3f kD %.3f, settle tolerance %.1f deg",
+            config.angleGains.kP, config.angleGains.kD, Constants.Simulation.STEER_SETTLE_TOLERANCE));
+        for (double step : steps) {
+            Result position = stepResponse(config, false, step);
+            Result motionMagic = stepResponse(config, true, step);
+            System.out.println(String.format("%5.1f deg step   position settle %5.0fms overshoot %5.2f deg   motion magic settle %5.0fms overshoot %5.2f deg",
+                step, position.settleTime * 1000.0, position.overshoot, motionMagic.settleTime * 1000.0, motionMagic.overshoot));
+        }
+        System.out.println(String.format("Swept target      position RMS %5.2f deg   motion magic RMS %5.2f deg",
+            tracking(config, false).trackingRms, tracking(config, true).trackingRms));
+    }
+}
@@ -0,0 +1,229 @@
+package frc.robot.sim;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.lib.util.CTREModuleState;
+import frc.robot.Constants;
+import frc.robot.config.SwerveConfig;
+
+/**
+ * Kinematic swerve drivetrain model that needs no HAL or vendor simulation, so several instances
+ * can run side by side and faster than real time. Each module slews its angle at a fixed rate and
+ * its wheel speed at a fixed acceleration towards the commanded state, and the pose is integrated
+ * from the resulting module states. The modules can instead be steered by a {@link SteeringSim}
+ * model of the Talon loop, and each wheel can be given less than full traction.
+ *
+ * <p>{@link SimModuleIO} and {@link SimGyroIO} put the model under a real
+ * {@link frc.robot.subsystems.SwerveDrivetrain}, in place of the Talons and the Pigeon.
+ *
+ * <p>Every instance owns its kinematics object, so instances are safe to run on separate threads.
+ */
+public class SwerveSim {
+
+    private final SwerveConfig config;
+    private final SwerveDriveKinematics kinematics;
+
+    private final double[] moduleSpeed = new double[4];
+    private final double[] moduleAngle = new double[4];    // radians
+    private final double[] moduleAngleRate = new double[4];    // radians per second
+    private final double[] moduleDistance = new double[4];  // meters the wheel turned, slipping or not
+    private final boolean[] direct = new boolean[4];
+    private final double[] traction = {1.0, 1.0, 1.0, 1.0};
+    private SteeringSim[] steering;
+    private final SwerveModuleState[] commanded = new SwerveModuleState[4];
+    private final SwerveModuleState[] measured = new SwerveModuleState[4];
+
+    private Pose2d pose = new Pose2d();
+    private ChassisSpeeds speeds = new ChassisSpeeds();
+    private double yaw;             // radians, not wrapped
+    private double accelerationX;   // robot relative, m/s^2
+    private double accelerationY;
+
+    public SwerveSim(SwerveConfig config) {
+        this.config = config;
+        this.kinematics = config.createKinematics();
+        for (int i = 0; i < 4; i++) {
+            commanded[i] = new SwerveModuleState();
+            measured[i] = new SwerveModuleState();
+        }
+    }
+
+    /**
+     * Put the model back at rest at a pose, keeping its steering model and traction.
+     */
+    public void reset(Pose2d pose) {
+        for (int i = 0; i < 4; i++) {
+            moduleSpeed[i] = 0.0;
+            moduleAngle[i] = 0.0;
+            moduleAngleRate[i] = 0.0;
+            moduleDistance[i] = 0.0;
+            commanded[i] = new SwerveModuleState();
+            if (steering != null) {
+                steering[i].reset(0.0);
+            }
+        }
+        this.pose = pose;
+        this.speeds = new ChassisSpeeds();
+        this.yaw = pose.getRotation().getRadians();
+        this.accelerationX = 0.0;
+        this.accelerationY = 0.0;
+    }
+
+    /**
+     * Steer the modules with a model of the Talon loop instead of a fixed slew rate.
+     *
+     * @param motionMagic Model Motion Magic steering rather than plain position control
+     * @param kP Angle motor kP in Talon units
+     * @param kD Angle motor kD in Talon units
+     */
+    public void setSteeringModel(boolean motionMagic, double kP, double kD) {
+        steering = new SteeringSim[4];
+        for (int i = 0; i < 4; i++) {
+            steering[i] = new SteeringSim(config.angleGearRatio, motionMagic, kP, kD);
+            steering[i].reset(Math.toDegrees(moduleAngle[i]));
+        }
+    }
+
+    /**
+     * @param module Module index
+     * @param factor Fraction of the wheel speed that moves the robot, 1 for full grip
+     */
+    public void setTraction(int module, double factor) {
+        traction[module] = factor;
+    }
+
+    public SwerveDriveKinematics getKinematics() {
+        return kinematics;
+    }
+
+    public void setPose(Pose2d pose) {
+        this.pose = pose;
+    }
+
+    public Pose2d getPose() {
+        return pose;
+    }
+
+    /**
+     * @return Robot relative velocity from the last step
+     */
+    public ChassisSpeeds getSpeeds() {
+        return speeds;
+    }
+
+    public double getModuleSpeed(int module) {
+        return moduleSpeed[module];
+    }
+
+    /**
+     * @return Meters the wheel has turned since the last reset, including any slip
+     */
+    public double getModuleDistance(int module) {
+        return moduleDistance[module];
+    }
+
+    /**
+     * @return Module angle in radians, not wrapped
+     */
+    public double getModuleAngle(int module) {
+        return moduleAngle[module];
+    }
+
+    public double getModuleAngleRate(int module) {
+        return moduleAngleRate[module];
+    }
+
+    /**
+     * @return Heading in radians, not wrapped, like a gyro sees it
+     */
+    public double getYaw() {
+        return yaw;
+    }
+
+    /**
+     * @return Robot relative acceleration over the last step, forward and left, like an
+     *         accelerometer at the robot center sees it
+     */
+    public double getAccelerationX() {
+        return accelerationX;
+    }
+
+    public double getAccelerationY() {
+        return accelerationY;
+    }
+
+    /**
+     * Command robot relative chassis speeds, desaturated like {@link frc.robot.subsystems.SwerveDrivetrain#drive}.
+     */
+    public void drive(ChassisSpeeds robotRelative) {
+        setModuleStates(kinematics.toSwerveModuleStates(robotRelative));
+    }
+
+    public void setModuleStates(SwerveModuleState[] states) {
+        SwerveDriveKinematics.desaturateWheelSpeeds(states, config.maxSpeed);
+        for (int i = 0; i < 4; i++) {
+            commanded[i] = CTREModuleState.optimize(states[i], new Rotation2d(moduleAngle[i]));
+            direct[i] = false;
+        }
+    }
+
+    /**
+     * Command one module as is, for a caller like SwerveModule that already optimizes the state
+     * and holds the angle at low speed.
+     *
+     * @param angle Radians, not wrapped
+     */
+    public void setModuleCommand(int module, double speed, double angle) {
+        commanded[module] = new SwerveModuleState(speed, new Rotation2d(angle));
+        direct[module] = true;
+    }
+
+    /**
+     * Advance the model.
+     *
+     * @param dt Time step in seconds
+     */
+    public void step(double dt) {
+        double maxTurn = Constants.Simulation.MODULE_STEER_RATE * dt;
+        double maxAccel = Constants.Simulation.MODULE_ACCELERATION * dt;
+
+        for (int i = 0; i < 4; i++) {
+            double targetAngle = commanded[i].angle.getRadians();
+            // Hold the angle when barely moving, like SwerveModule does
+            boolean moving = direct[i] || Math.abs(commanded[i].speedMetersPerSecond) > config.maxSpeed * 0.01;
+            double lastAngle = moduleAngle[i];
+            if (steering != null) {
+                if (moving) {
+                    steering[i].setTarget(Math.toDegrees(targetAngle));
+                }
+                steering[i].advance(dt);
+                moduleAngle[i] = Math.toRadians(steering[i].getPosition());
+            } else if (moving) {
+                double error = targetAngle - moduleAngle[i];
+                moduleAngle[i] += Math.max(-maxTurn, Math.min(maxTurn, error));
+            }
+
+            moduleAngleRate[i] = (moduleAngle[i] - lastAngle) / dt;
+
+            double speedError = commanded[i].speedMetersPerSecond - moduleSpeed[i];
+            moduleSpeed[i] += Math.max(-maxAccel, Math.min(maxAccel, speedError));
+            moduleDistance[i] += moduleSpeed[i] * dt;
+
+            // Slipping wheels spin at the commanded speed but only part of it moves the robot
+            measured[i].speedMetersPerSecond = moduleSpeed[i] * traction[i];
+            measured[i].angle = new Rotation2d(moduleAngle[i]);
+        }
+
+        ChassisSpeeds last = speeds;
+        speeds = kinematics.toChassisSpeeds(measured);
+        // Velocity change plus the centripetal part of moving in a turning frame
+        accelerationX = (speeds.vxMetersPerSecond - last.vxMetersPerSecond) / dt - speeds.omegaRadiansPerSecond * speeds.vyMetersPerSecond;
+        accelerationY = (speeds.vyMetersPerSecond - last.vyMetersPerSecond) / dt + speeds.omegaRadiansPerSecond * speeds.vxMetersPerSecond;
+        yaw += speeds.omegaRadiansPerSecond * dt;
+        pose = pose.exp(new Twist2d(speeds.vxMetersPerSecond * dt, speeds.vyMetersPerSecond * dt, speeds.omegaRadiansPerSecond * dt));
+    }
+}
@@ -0,0 +1,205 @@
+package frc.robot.subsystems;
+
+import frc.lib.util.PowerConsumer;
+import frc.robot.Constants;
+
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+/**
+ * Splits a total supply current budget between the registered mechanisms by priority. The budget
+ * shrinks as the battery sags towards brownout, and new limits are only sent over CAN when they
+ * move by more than the hysteresis and the update period has passed.
+ */
+public class PowerBudgeter extends SubsystemBase {
+
+    private static final int MAX_CONSUMERS = 8;
+
+    private final PowerConsumer[] consumers = new PowerConsumer[MAX_CONSUMERS];
+    private final int[] priorities = new int[MAX_CONSUMERS];
+    private final double[] minAmps = new double[MAX_CONSUMERS];
+    private final double[] maxAmps = new double[MAX_CONSUMERS];
+
+    private final double[] measuredSupply = new double[MAX_CONSUMERS];
+    private final double[] measuredStator = new double[MAX_CONSUMERS];
+    private final double[] allocated = new double[MAX_CONSUMERS];
+    private final double[] applied = new double[MAX_CONSUMERS];
+    private final double[] lastApplyTime = new double[MAX_CONSUMERS];
+    private int count = 0;
+
+    private double batteryVoltage = Constants.Power.NOMINAL_VOLTAGE;
+    private double totalBudget = Constants.Power.TOTAL_SUPPLY_BUDGET;
+    private double totalSupply = 0.0;
+    private final boolean publish;
+
+    public PowerBudgeter() {
+        this(true);
+    }
+
+    /**
+     * @param publish False to leave the budgeter off the dashboard, so tests can make more than one
+     */
+    PowerBudgeter(boolean publish) {
+        this.publish = publish;
+        if (publish) {
+            dashboard();
+        }
+    }
+
+    /**
+     * Register a mechanism. Consumers with a lower priority value are served first.
+     *
+     * @param name Dashboard name of the mechanism
+     * @param consumer The mechanism
+     * @param priority Allocation order, 0 is the most important
+     * @param min Supply current the mechanism always gets (amps)
+     * @param max Supply current the mechanism never exceeds (amps)
+     */
+    public void register(String name, PowerConsumer consumer, int priority, double min, double max) {
+        if (count == MAX_CONSUMERS) {
+            throw new IllegalStateException("Too many power consumers registered");
+        }
+
+        // Insertion sort by priority so the periodic loop can walk the arrays in order
+        int i = count++;
+        while (i > 0 && priorities[i - 1] > priority) {
+            consumers[i] = consumers[i - 1];
+            priorities[i] = priorities[i - 1];
+            minAmps[i] = minAmps[i - 1];
+            maxAmps[i] = maxAmps[i - 1];
+            applied[i] = applied[i - 1];
+            lastApplyTime[i] = lastApplyTime[i - 1];
+            i--;
+        }
+        consumers[i] = consumer;
+        priorities[i] = priority;
+        minAmps[i] = min;
+        maxAmps[i] = max;
+        applied[i] = Double.NaN;
+        lastApplyTime[i] = Double.NEGATIVE_INFINITY;
+
+        if (!publish) {
+            return;
+        }
+        ShuffleboardTab tab = Shuffleboard.getTab("Power");
+        final int index = i;
+        tab.addNumber(name + " Supply (A)", () -> measuredSupply[index]);
+        tab.addNumber(name + " Stator (A)", () -> measuredStator[index]);
+        tab.addNumber(name + " Budget (A)", () -> applied[index]);
+    }
+
+    /**
+     * @param voltage Measured battery voltage
+     * @return Fraction of the total budget available at this voltage
+     */
+    private static double budgetScale(double voltage) {
+        double warn = Constants.Power.BROWNOUT_WARN_VOLTAGE;
+        double min = Constants.Power.BROWNOUT_MIN_VOLTAGE;
+        if (voltage >= warn) {
+            return 1.0;
+        }
+        if (voltage <= min) {
+            return Constants.Power.MIN_BUDGET_SCALE;
+        }
+        double t = (voltage - min) / (warn - min);
+        return Constants.Power.MIN_BUDGET_SCALE + t * (1.0 - Constants.Power.MIN_BUDGET_SCALE);
+    }
+
+    private void allocate() {
+        double remaining = totalBudget;
+
+        /* Everyone gets their minimum first, scaled down together if even that does not fit */
+        double minSum = 0.0;
+        for (int i = 0; i < count; i++) {
+            minSum += minAmps[i];
+        }
+        double minScale = (minSum > remaining) ? remaining / minSum : 1.0;
+        for (int i = 0; i < count; i++) {
+            allocated[i] = minAmps[i] * minScale;
+            remaining -= allocated[i];
+        }
+
+        /* Then cover what each mechanism is actually asking for, in priority order */
+        for (int i = 0; i < count && remaining > 0.0; i++) {
+            double demand = Math.min(maxAmps[i], measuredSupply[i] + Constants.Power.DEMAND_HEADROOM);
+            double grant = Math.min(remaining, Math.max(0.0, demand - allocated[i]));
+            allocated[i] += grant;
+            remaining -= grant;
+        }
+
+        /* Anything left over goes to whoever can still take it, again in priority order */
+        for (int i = 0; i < count && remaining > 0.0; i++) {
+            double grant = Math.min(remaining, maxAmps[i] - allocated[i]);
+            if (grant > 0.0) {
+                allocated[i] += grant;
+                remaining -= grant;
+            }
+        }
+    }
+
+    private void applyLimits(double now) {
+        boolean sagging = batteryVoltage < Constants.Power.BROWNOUT_WARN_VOLTAGE;
+        for (int i = 0; i < count; i++) {
+            double delta = allocated[i] - applied[i];
+            boolean first = Double.isNaN(applied[i]);
+            if (!first && Math.abs(delta) < Constants.Power.LIMIT_HYSTERESIS) {
+                continue;
+            }
+            // Cutting current while the battery sags cannot wait for the next update window
+            boolean urgent = sagging && delta < 0.0;
+            if (!first && !urgent && (now - lastApplyTime[i]) < Constants.Power.LIMIT_UPDATE_PERIOD) {
+                continue;
+            }
+            consumers[i].setSupplyCurrentBudget(allocated[i]);
+            applied[i] = allocated[i];
+            lastApplyTime[i] = now;
+        }
+    }
+
+    public double getBatteryVoltage() {
+        return batteryVoltage;
+    }
+
+    public double getTotalBudget() {
+        return totalBudget;
+    }
+
+    public double getTotalSupplyCurrent() {
+        return totalSupply;
+    }
+
+    public void dashboard() {
+        ShuffleboardTab tab = Shuffleboard.getTab("Power");
+        tab.addNumber("Battery (V)", this::getBatteryVoltage).withWidget(BuiltInWidgets.kGraph);
+        tab.addNumber("Total Budget (A)", this::getTotalBudget);
+        tab.addNumber("Total Supply (A)", this::getTotalSupplyCurrent).withWidget(BuiltInWidgets.kGraph);
+    }
+
+    @Override
+    public void periodic() {
+        batteryVoltage = RobotController.getBatteryVoltage();
+        totalBudget = Constants.Power.TOTAL_SUPPLY_BUDGET * budgetScale(batteryVoltage);
+
+        totalSupply = 0.0;
+        for (int i = 0; i < count; i++) {
+            measuredSupply[i] = consumers[i].getSupplyCurrent();
+            measuredStator[i] = consumers[i].getStatorCurrent();
+            totalSupply += measuredSupply[i];
+        }
+
+        allocate();
+        applyLimits(Timer.getFPGATimestamp());
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        // Sag the simulated battery with the current we are pulling so the budget reacts like it would on the robot
+        RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(totalSupply));
+    }
+}
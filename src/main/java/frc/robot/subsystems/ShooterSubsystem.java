@@ -3,21 +3,34 @@ package frc.robot.subsystems;
 import java.util.Map;
 
 import frc.lib.math.Conversions;
-import frc.robot.Constants;
+import frc.lib.util.BufferedMotorOutput;
+import frc.lib.util.PowerConsumer;
+import frc.robot.config.RobotConfig;
+import frc.robot.config.ShooterConfig;
 
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.SupplyCurrentLimitConfiguration;
 import com.ctre.phoenix.motorcontrol.TalonFXControlMode;
 import com.ctre.phoenix.motorcontrol.TalonFXInvertType;
 import com.ctre.phoenix.motorcontrol.can.TalonFX;
 
 import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
-public class ShooterSubsystem extends SubsystemBase {
+public class ShooterSubsystem extends SubsystemBase implements PowerConsumer {
 
-    private TalonFX shooter = new TalonFX(Constants.Shooter.SHOOTER_ID);
+    private ShooterConfig config = RobotConfig.getInstance().shooter;
+    private TalonFX shooter = new TalonFX(config.motorId);
+    private BufferedMotorOutput output = new BufferedMotorOutput(shooter);
+
+    /* Read once per loop in readSensors() */
+    private double velocityCounts;
+
+    private SupplyCurrentLimitConfiguration supplyLimit = config.currentLimit.toSupplyConfiguration();
     
     // TODO: Remove after testing
     private NetworkTableEntry velocity_dash;
@@ -25,12 +38,14 @@ public class ShooterSubsystem extends SubsystemBase {
 
     public ShooterSubsystem () {
         shooter.configFactoryDefault();
-        shooter.setInverted(TalonFXInvertType.CounterClockwise);
+        shooter.setInverted(config.inverted ? TalonFXInvertType.Clockwise : TalonFXInvertType.CounterClockwise);
 
-        shooter.config_kP(0, 0.2);
-        shooter.config_kI(0, 0.0);
-        shooter.config_kD(0, 0.0);
-        shooter.config_kF(0, 0.05);
+        shooter.config_kP(0, config.gains.kP);
+        shooter.config_kI(0, config.gains.kI);
+        shooter.config_kD(0, config.gains.kD);
+        shooter.config_kF(0, config.gains.kF);
+
+        shooter.configSupplyCurrentLimit(supplyLimit);
 
         dashboard();
     }
@@ -39,8 +54,33 @@ public class ShooterSubsystem extends SubsystemBase {
         // shooter.set(TalonFXControlMode.Velocity, Conversions.RPMToFalcon(this.velocity_dash.getDouble(this.velocity_rpm), 1.0));
     }
 
+    public void readSensors () {
+        velocityCounts = shooter.getSelectedSensorVelocity();
+    }
+
+    public void setVoltage (double volts) {
+        output.set(ControlMode.PercentOutput, volts / RobotController.getBatteryVoltage());
+    }
+
     public double getVelocity () {
-        return Conversions.falconToRPM(shooter.getSelectedSensorVelocity(), 1.0);
+        return Conversions.falconToRPM(velocityCounts, 1.0);
+    }
+
+    @Override
+    public double getSupplyCurrent () {
+        return shooter.getSupplyCurrent();
+    }
+
+    @Override
+    public double getStatorCurrent () {
+        return shooter.getStatorCurrent();
+    }
+
+    @Override
+    public void setSupplyCurrentBudget (double amps) {
+        supplyLimit.currentLimit = amps;
+        supplyLimit.triggerThresholdCurrent = amps * config.currentLimit.peak / config.currentLimit.continuous;
+        shooter.configSupplyCurrentLimit(supplyLimit, 0);
     }
 
     public void dashboard () {
@@ -2,12 +2,23 @@ package frc.robot.subsystems;
 
 import java.util.function.DoubleSupplier;
 
-import com.ctre.phoenix.sensors.Pigeon2;
 import com.ctre.phoenix.sensors.PigeonIMU;
 
+import frc.lib.util.PoseHistory;
+import frc.lib.util.PowerConsumer;
+import frc.lib.util.TunableRegistry;
 import frc.robot.Constants;
 import frc.robot.Constants.SwerveDrivetrain.Mod0;
+import frc.robot.config.RobotConfig;
+import frc.robot.config.SwerveConfig;
+import frc.robot.utils.swerve.GyroHeading;
+import frc.robot.utils.swerve.GyroIO;
+import frc.robot.utils.swerve.ModuleIO;
+import frc.robot.utils.swerve.Pigeon2GyroIO;
 import frc.robot.utils.swerve.SwerveModule;
+import frc.robot.utils.swerve.SwerveModuleHealthMonitor;
+import frc.robot.utils.swerve.SlipDetector;
+import frc.robot.utils.swerve.TalonModuleIO;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -17,6 +28,7 @@ import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
@@ -25,29 +37,79 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
 
-public class SwerveDrivetrain extends SubsystemBase {
+public class SwerveDrivetrain extends SubsystemBase implements PowerConsumer {
     
+    private final SwerveConfig config;
+    private final SwerveDriveKinematics kinematics;
     private SwerveDriveOdometry swerveOdometry;
     private SwerveModule[] swerveModules;
-    private Pigeon2 gyro;
+    private SwerveModuleHealthMonitor healthMonitor;
+    private GyroIO gyro;
+    private GyroHeading heading;
     private Field2d field;
+    private int tuningVersion = -1;     // Apply saved gains on the first loop
+
+    /* Slip detection, odometry integrates these corrected positions instead of the raw ones */
+    private SlipDetector slipDetector;
+    private final double[] slipSpeeds = new double[4];
+    private final double[] slipAngles = new double[4];
+    private final double[] lastDriveDistance = new double[4];
+    private final SwerveModulePosition[] odometryPositions = new SwerveModulePosition[4];
+    private final double[] acceleration = new double[3];
+    private double lastOdometryTime;
+
+    /* Filled every loop for latency compensation, readable from any thread */
+    private final PoseHistory poseHistory = new PoseHistory(Constants.SwerveDrivetrain.POSE_HISTORY_SIZE);
 
     public SwerveDrivetrain() {
-        this.gyro = new Pigeon2(Constants.SwerveDrivetrain.GYRO_ID);
-        this.gyro.configFactoryDefault();
+        this(RobotConfig.getInstance().swerve);
+    }
+
+    private SwerveDrivetrain(SwerveConfig config) {
+        this(config, new Pigeon2GyroIO(config.gyroId), new ModuleIO[] {
+            new TalonModuleIO(0, config),
+            new TalonModuleIO(1, config),
+            new TalonModuleIO(2, config),
+            new TalonModuleIO(3, config)
+        });
+
+        this.healthMonitor = new SwerveModuleHealthMonitor(swerveModules);
+        this.healthMonitor.start();
+
+        dashboard();
+    }
+
+    /**
+     * Drivetrain on any gyro and modules, for simulations. Nothing is put on the dashboard and the
+     * module health monitor does not run, so several can exist in one JVM.
+     */
+    public SwerveDrivetrain(SwerveConfig config, GyroIO gyro, ModuleIO[] modules) {
+        this.config = config;
+        this.kinematics = this.config.createKinematics();
+
+        this.gyro = gyro;
+        this.heading = new GyroHeading(this.gyro, this.config.invertGyro);
+        this.heading.update();
         this.zeroGyro();
 
         swerveModules = new SwerveModule[] {
-            new SwerveModule(0, Constants.SwerveDrivetrain.Mod0.constants),
-            new SwerveModule(1, Constants.SwerveDrivetrain.Mod1.constants),
-            new SwerveModule(2, Constants.SwerveDrivetrain.Mod2.constants),
-            new SwerveModule(3, Constants.SwerveDrivetrain.Mod3.constants)
+            new SwerveModule(0, this.config, modules[0]),
+            new SwerveModule(1, this.config, modules[1]),
+            new SwerveModule(2, this.config, modules[2]),
+            new SwerveModule(3, this.config, modules[3])
         };
 
 
+        this.slipDetector = new SlipDetector(this.config.getModuleTranslations());
+        for (SwerveModule mod : swerveModules) {
+            this.lastDriveDistance[mod.moduleNumber] = mod.getDriveDistance();
+            this.odometryPositions[mod.moduleNumber] = mod.getPosition();
+        }
+        this.lastOdometryTime = Timer.getFPGATimestamp();
+
         //this.swerveOdometry = new SwerveDriveOdometry(Constants.SwerveDrivetrain.SWERVE_KINEMATICS, this.getYaw());
-        this.swerveOdometry = new SwerveDriveOdometry(Constants.SwerveDrivetrain.SWERVE_KINEMATICS, this.getYaw(),
-                                                    getModulePositions());
+        this.swerveOdometry = new SwerveDriveOdometry(this.kinematics, this.getYaw(),
+                                                    this.odometryPositions);
         //this.swerveOdometry = new SwerveDriveOdometry(kinematics: null, getYaw(), null)
         //this.swerveOdometry = new SwerveDriveOdometry(null, getYaw(), null, getPose())
 
@@ -55,8 +117,6 @@ public class SwerveDrivetrain extends SubsystemBase {
         
 
         this.field = new Field2d();
-
-        dashboard();
     }
 
     public void drive(Translation2d translation, double rotation, boolean fieldRelative, boolean isOpenLoop) {
@@ -70,13 +130,13 @@ public class SwerveDrivetrain extends SubsystemBase {
         // //added 2/4/2023
         // setModuleStates(zeroInit);
 
-        SwerveModuleState[] swerveModuleStates = Constants.SwerveDrivetrain.SWERVE_KINEMATICS.toSwerveModuleStates(
+        SwerveModuleState[] swerveModuleStates = this.kinematics.toSwerveModuleStates(
             fieldRelative ?
                 ChassisSpeeds.fromFieldRelativeSpeeds(
                     translation.getX(),
                     translation.getY(),
                     rotation,
-                    this.getYaw()
+                    this.heading.getCommandYaw()
                 )
             :
                 new ChassisSpeeds(
@@ -86,34 +146,44 @@ public class SwerveDrivetrain extends SubsystemBase {
                 )
         );
 
-        SwerveDriveKinematics.desaturateWheelSpeeds(swerveModuleStates, Constants.SwerveDrivetrain.MAX_SPEED);
+        SwerveDriveKinematics.desaturateWheelSpeeds(swerveModuleStates, this.config.maxSpeed);
 
         for (SwerveModule mod : this.swerveModules) {
             mod.setDesiredState(swerveModuleStates[mod.moduleNumber], isOpenLoop);
         }
     }
 
+    /**
+     * Sample every module's sensors. Called at the very start of the loop, before any command runs.
+     */
+    public void readSensors() {
+        this.heading.update();
+        for (SwerveModule mod : this.swerveModules) {
+            mod.readSensors();
+        }
+    }
+
     /* Gyro */
     public void zeroGyro() {
-        this.gyro.setYaw(0);
+        this.heading.reset(0.0);
     }
 
-    private double optimizeGyro (double degrees) {
-        // 0 < degrees < 360
-        if ((degrees > 0.0) && (degrees < 360.0)) {
-            return degrees;
-        } else {
-            int m = (int) Math.floor( degrees / 360.0 );
-            double optimizedDegrees = degrees - (m * 360.0);
-            return Math.abs(optimizedDegrees);
-        }
+    /**
+     * @return Heading from this loop's gyro sample, 0 to 360 degrees
+     */
+    public Rotation2d getYaw() {
+        return this.heading.getYaw();
     }
 
-    public Rotation2d getYaw() {
-        double[] ypr = new double[3];
-        this.gyro.getYawPitchRoll(ypr);
-        double yaw = optimizeGyro(ypr[0]);
-        return Constants.SwerveDrivetrain.INVERT_GYRO ? Rotation2d.fromDegrees(360 - yaw) : Rotation2d.fromDegrees(yaw);
+    /**
+     * @return Yaw in radians without wrapping, counter clockwise positive
+     */
+    public double getContinuousYawRadians() {
+        return this.heading.getYawRadians();
+    }
+
+    public GyroHeading getHeading() {
+        return this.heading;
     }
 
     public double getGyroAngleDegrees() {
@@ -130,11 +200,50 @@ public class SwerveDrivetrain extends SubsystemBase {
     }
 
     public void setPose(Pose2d pose) {
-        this.swerveOdometry.resetPosition(pose.getRotation(), getModulePositions(), pose);
+        this.swerveOdometry.resetPosition(pose.getRotation(), this.odometryPositions, pose);
+        this.poseHistory.clear();
     }
 
     public void resetOdometry(Pose2d pose) {
-        this.swerveOdometry.resetPosition(this.getYaw(), getModulePositions() , pose);
+        this.swerveOdometry.resetPosition(this.getYaw(), this.odometryPositions, pose);
+        this.poseHistory.clear();
+    }
+
+    /**
+     * @return Poses of the last {@link Constants.SwerveDrivetrain#POSE_HISTORY_SIZE} loops, safe to query from other threads
+     */
+    public PoseHistory getPoseHistory() {
+        return this.poseHistory;
+    }
+
+    /**
+     * @param timestamp FPGA time in seconds
+     * @return Where odometry had the robot at that time, or null if it is older than the history
+     */
+    public Pose2d getPoseAt(double timestamp) {
+        return this.poseHistory.getPose(timestamp);
+    }
+
+    /**
+     * @return Robot velocity measured by the modules, field relative
+     */
+    public ChassisSpeeds getFieldRelativeSpeeds() {
+        ChassisSpeeds robotRelative = this.kinematics.toChassisSpeeds(getStates());
+        Translation2d velocity = new Translation2d(robotRelative.vxMetersPerSecond, robotRelative.vyMetersPerSecond)
+            .rotateBy(getPose().getRotation());
+        return new ChassisSpeeds(velocity.getX(), velocity.getY(), robotRelative.omegaRadiansPerSecond);
+    }
+
+    public SwerveModule[] getModules() {
+        return this.swerveModules;
+    }
+
+    public SwerveDriveKinematics getKinematics() {
+        return this.kinematics;
+    }
+
+    public SwerveConfig getConfig() {
+        return this.config;
     }
 
     /* Module States */
@@ -154,13 +263,111 @@ public class SwerveDrivetrain extends SubsystemBase {
         return positions;
     }
 
+    /**
+     * Run the slip detector on this loop's sample and advance the odometry positions. Each module's
+     * distance is blended with what the rigid body fit says it covered, by how much it is trusted.
+     */
+    private void updateOdometryPositions() {
+        double now = Timer.getFPGATimestamp();
+        double dt = now - this.lastOdometryTime;
+        this.lastOdometryTime = now;
+
+        for (SwerveModule mod : this.swerveModules) {
+            this.slipSpeeds[mod.moduleNumber] = mod.getDriveVelocity();
+            this.slipAngles[mod.moduleNumber] = mod.getAngleRadians();
+        }
+        this.gyro.getAcceleration(this.acceleration);
+        this.slipDetector.update(this.slipSpeeds, this.slipAngles, this.heading.getRate(),
+            this.acceleration[0], this.acceleration[1], dt);
+
+        for (SwerveModule mod : this.swerveModules) {
+            int i = mod.moduleNumber;
+            double distance = mod.getDriveDistance();
+            double measured = distance - this.lastDriveDistance[i];
+            this.lastDriveDistance[i] = distance;
+
+            double weight = this.slipDetector.getWeight(i);
+            double fitted = this.slipDetector.getFittedWheelSpeed(i, this.slipAngles[i]) * dt;
+            this.odometryPositions[i].distanceMeters += weight * measured + (1.0 - weight) * fitted;
+            this.odometryPositions[i].angle = mod.getAngle();
+        }
+    }
+
+    public SlipDetector getSlipDetector() {
+        return this.slipDetector;
+    }
+
     public void setModuleStates(SwerveModuleState[] desiredStates) {
-        SwerveDriveKinematics.desaturateWheelSpeeds(desiredStates, Constants.SwerveDrivetrain.MAX_SPEED);
+        SwerveDriveKinematics.desaturateWheelSpeeds(desiredStates, this.config.maxSpeed);
         for (SwerveModule mod : this.swerveModules) {
             mod.setDesiredState(desiredStates[mod.moduleNumber], false);
         }
     }
 
+    /* Tuning */
+    private void applyTunedGains() {
+        for (SwerveModule mod : this.swerveModules) {
+            mod.applyTunedGains();
+        }
+    }
+
+    /* Characterization */
+    public void runDriveCharacterization(double volts) {
+        for (SwerveModule mod : this.swerveModules) {
+            mod.setDriveVoltage(volts);
+        }
+    }
+
+    public void runSteerCharacterization(double volts) {
+        for (SwerveModule mod : this.swerveModules) {
+            mod.setAngleVoltage(volts);
+        }
+    }
+
+    public double getAverageDriveVelocity() {
+        double sum = 0.0;
+        for (SwerveModule mod : this.swerveModules) {
+            sum += mod.getDriveVelocity();
+        }
+        return sum / this.swerveModules.length;
+    }
+
+    public double getAverageAngleVelocity() {
+        double sum = 0.0;
+        for (SwerveModule mod : this.swerveModules) {
+            sum += mod.getAngleVelocity();
+        }
+        return sum / this.swerveModules.length;
+    }
+
+    /* Power */
+    @Override
+    public double getSupplyCurrent() {
+        double current = 0.0;
+        for (SwerveModule mod : this.swerveModules) {
+            current += mod.getDriveSupplyCurrent() + mod.getAngleSupplyCurrent();
+        }
+        return current;
+    }
+
+    @Override
+    public double getStatorCurrent() {
+        double current = 0.0;
+        for (SwerveModule mod : this.swerveModules) {
+            current += mod.getDriveStatorCurrent() + mod.getAngleStatorCurrent();
+        }
+        return current;
+    }
+
+    @Override
+    public void setSupplyCurrentBudget(double amps) {
+        // Angle motors keep their fixed limits, only the drive motors share what is left
+        double perModule = Math.max(0.0, amps - Constants.Power.DRIVETRAIN_ANGLE_RESERVE) / this.swerveModules.length;
+        for (SwerveModule mod : this.swerveModules) {
+            mod.setDriveSupplyCurrentLimit(perModule);
+        }
+    }
+
     public void dashboard() {
         ShuffleboardTab tab = Shuffleboard.getTab("Drivetrain");
         tab.add(this);
@@ -176,17 +383,45 @@ public class SwerveDrivetrain extends SubsystemBase {
         // tab.addDouble("Mod2", (DoubleSupplier) swerveModules[2].getCanCoder());
         // tab.addDouble("Mod3", (DoubleSupplier) swerveModules[3].getCanCoder());
 
-        tab.add("Mod0", swerveModules[0].getCanCoder2());
-        tab.add("Mod1", swerveModules[1].getCanCoder2());
-        tab.add("Mod2", swerveModules[2].getCanCoder2());
-        tab.add("Mod3", swerveModules[3].getCanCoder2());
+        tab.addNumber("Mod0", () -> swerveModules[0].getCanCoder().getDegrees());
+        tab.addNumber("Mod1", () -> swerveModules[1].getCanCoder().getDegrees());
+        tab.addNumber("Mod2", () -> swerveModules[2].getCanCoder().getDegrees());
+        tab.addNumber("Mod3", () -> swerveModules[3].getCanCoder().getDegrees());
+
+        for (SwerveModule mod : this.swerveModules) {
+            final int i = mod.moduleNumber;
+            tab.addNumber("Mod" + i + " Slip Weight", () -> this.slipDetector.getWeight(i));
+        }
+        tab.addNumber("Slipping Modules", this.slipDetector::getSlippingCount);
+        tab.addNumber("Gyro Disagreement (deg/s)", () -> Math.toDegrees(this.slipDetector.getGyroDisagreement()));
+        tab.addNumber("Unexplained Accel (m/s^2)", this.slipDetector::getUnexplainedAcceleration).withWidget(BuiltInWidgets.kGraph);
+        tab.addBoolean("Collision", this.slipDetector::isColliding);
+        tab.addNumber("Collisions", this.slipDetector::getCollisionCount);
 
 
     }
 
     @Override
     public void periodic() {
-        this.swerveOdometry.update(this.getYaw(), getModulePositions());
+        int version = TunableRegistry.getVersion();
+        if (version != this.tuningVersion) {
+            this.tuningVersion = version;
+            applyTunedGains();
+        }
+
+        updateOdometryPositions();
+        this.swerveOdometry.update(this.getYaw(), this.odometryPositions);
+        recordPoseHistory();
         this.field.setRobotPose(this.swerveOdometry.getPoseMeters());
     }
+
+    private void recordPoseHistory() {
+        Pose2d pose = this.swerveOdometry.getPoseMeters();
+        double cos = pose.getRotation().getCos();
+        double sin = pose.getRotation().getSin();
+        double vx = this.slipDetector.getVx();
+        double vy = this.slipDetector.getVy();
+        this.poseHistory.record(this.lastOdometryTime, pose,
+            vx * cos - vy * sin, vx * sin + vy * cos, this.slipDetector.getOmega(), getContinuousYawRadians());
+    }
 }
@@ -0,0 +1,214 @@
+package frc.robot.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.EventMarker;
+import com.pathplanner.lib.commands.FollowPathWithEvents;
+import com.pathplanner.lib.commands.PPSwerveControllerCommand;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.wpilibj2.command.WaitCommand;
+import frc.robot.Constants;
+import frc.robot.Tuning;
+import frc.robot.config.AutonConfig;
+import frc.robot.config.RobotConfig;
+import frc.robot.subsystems.SwerveDrivetrain;
+
+/**
+ * Builds autonomous routines from the JSON files in deploy/autos. Every routine is built at boot,
+ * so picking one from the chooser costs nothing at autonomousInit.
+ *
+ * <pre>
+ * {
+ *   "steps": [
+ *     { "path": "test_1", "maxSpeed": 4.0, "maxAcceleration": 3.0, "resetPose": true, "with": ["intake"] },
+ *     { "event": "shoot", "timeout": 1.5 },
+ *     { "wait": 0.5 }
+ *   ]
+ * }
+ * </pre>
+ *
+ * Path steps run the event markers placed on the path in PathPlanner alongside the path, plus any
+ * events listed under "with" for the whole length of the path. Event steps run on their own and
+ * may have a timeout.
+ */
+public class AutoRoutineLoader {
+
+    private final SwerveDrivetrain drivetrain;
+    private final AutonConfig auton;
+    private final Map<String, Supplier<Command>> events;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param drivetrain Drivetrain that follows the paths
+     * @param events Named actions for event markers. Each use gets a new command from the supplier
+     */
+    public AutoRoutineLoader(SwerveDrivetrain drivetrain, Map<String, Supplier<Command>> events) {
+        this(drivetrain, RobotConfig.getInstance().auton, events);
+    }
+
+    /**
+     * @param auton Path limits for steps that leave them out
+     */
+    public AutoRoutineLoader(SwerveDrivetrain drivetrain, AutonConfig auton, Map<String, Supplier<Command>> events) {
+        this.drivetrain = drivetrain;
+        this.auton = auton;
+        this.events = events;
+    }
+
+    /**
+     * Build every routine in the autos directory and add it to the chooser.
+     *
+     * @param defaultRoutine Routine selected when nothing else is picked
+     */
+    public SendableChooser<Command> loadAll(String defaultRoutine) {
+        SendableChooser<Command> chooser = new SendableChooser<>();
+        chooser.setDefaultOption("None", new InstantCommand());
+
+        Path directory = Filesystem.getDeployDirectory().toPath().resolve(Constants.Auton.ROUTINE_DIRECTORY);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.toString().endsWith(".json")).sorted().forEach(files::add);
+        } catch (IOException e) {
+            DriverStation.reportError("Unable to list auto routines in " + directory.toString(), e.getStackTrace());
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString().replace(".json", "");
+            Command routine = load(file);
+            if (routine == null) {
+                continue;
+            }
+            if (name.equals(defaultRoutine)) {
+                chooser.setDefaultOption(name, routine);
+            } else {
+                chooser.addOption(name, routine);
+            }
+        }
+        return chooser;
+    }
+
+    /**
+     * @return The routine, or null if the file could not be read
+     */
+    public Command load(Path file) {
+        try {
+            System.out.println("Loading auto routine at " + file.toString());
+            JsonNode root = mapper.readTree(file.toFile());
+            SequentialCommandGroup routine = new SequentialCommandGroup();
+            for (JsonNode step : root.path("steps")) {
+                routine.addCommands(buildStep(step));
+            }
+            return routine;
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportError("Unable to load auto routine at " + file.toString() + ": " + e.getMessage(), e.getStackTrace());
+            return null;
+        }
+    }
+
+    /**
+     * Build one step of a routine, in the same format as the routine files.
+     */
+    public Command buildStep(JsonNode step) {
+        if (step.has("path")) {
+            return buildPath(step);
+        }
+        if (step.has("event")) {
+            Command event = buildEvent(step.get("event").asText());
+            return step.has("timeout") ? event.withTimeout(step.get("timeout").asDouble()) : event;
+        }
+        if (step.has("wait")) {
+            return new WaitCommand(step.get("wait").asDouble());
+        }
+        throw new IllegalArgumentException("Unknown step " + step.toString());
+    }
+
+    private Command buildEvent(String name) {
+        Supplier<Command> event = events.get(name);
+        if (event == null) {
+            throw new IllegalArgumentException("Unknown event " + name);
+        }
+        return event.get();
+    }
+
+    private Command buildPath(JsonNode step) {
+        String name = step.get("path").asText();
+        PathPlannerTrajectory trajectory = PathPlanner.loadPath(name, new PathConstraints(
+            step.path("maxSpeed").asDouble(this.auton.maxSpeed),
+            step.path("maxAcceleration").asDouble(this.auton.maxAcceleration)));
+        if (trajectory == null) {
+            throw new IllegalArgumentException("Unable to load path " + name);
+        }
+
+        // Routines are built at boot, so the tuned gains are loaded into the controllers when the path starts
+        PIDController xController = new PIDController(0.0, 0.0, 0.0);
+        PIDController yController = new PIDController(0.0, 0.0, 0.0);
+        PIDController thetaController = new PIDController(0.0, 0.0, 0.0);
+        Command follow = new PPSwerveControllerCommand(
+            trajectory,
+            drivetrain::getPose,
+            drivetrain.getKinematics(),
+            xController,
+            yController,
+            thetaController,
+            drivetrain::setModuleStates,
+            false,
+            drivetrain
+        ) {
+            @Override
+            public void initialize() {
+                Tuning.applyAutonGains(xController, yController, thetaController);
+                super.initialize();
+            }
+        };
+
+        /* Markers placed on the path in PathPlanner */
+        Map<String, Command> markerCommands = new HashMap<>();
+        for (EventMarker marker : trajectory.getMarkers()) {
+            for (String event : marker.names) {
+                if (!markerCommands.containsKey(event)) {
+                    markerCommands.put(event, buildEvent(event));
+                }
+            }
+        }
+        if (!markerCommands.isEmpty()) {
+            follow = new FollowPathWithEvents(follow, trajectory.getMarkers(), markerCommands);
+        }
+
+        /* Actions that run for the whole path */
+        List<Command> with = new ArrayList<>();
+        for (JsonNode event : step.path("with")) {
+            with.add(buildEvent(event.asText()));
+        }
+        if (!with.isEmpty()) {
+            follow = Commands.deadline(follow, with.toArray(new Command[0]));
+        }
+
+        if (step.path("resetPose").asBoolean(false)) {
+            Pose2d initial = trajectory.getInitialHolonomicPose();
+            follow = Commands.runOnce(() -> drivetrain.resetOdometry(initial), drivetrain).andThen(follow);
+        }
+        return follow;
+    }
+}
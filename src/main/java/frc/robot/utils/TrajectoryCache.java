@@ -0,0 +1,101 @@
+package frc.robot.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import frc.robot.Constants;
+
+/**
+ * Least recently used cache of generated trajectories. Start and end poses (and the start
+ * velocity) are quantized before lookup so that repeated trips between roughly the same places,
+ * like driving up to a scoring station, reuse the trajectory generated the first time. A moving
+ * robot's trajectory leaves along its direction of travel, so that direction is part of the key.
+ */
+public class TrajectoryCache {
+
+    private static final class Key {
+        private final int startX, startY, startTheta, startSpeed, startDirection;
+        private final int endX, endY, endTheta;
+
+        private Key(Pose2d start, ChassisSpeeds startSpeeds, Pose2d end) {
+            double speed = Math.hypot(startSpeeds.vxMetersPerSecond, startSpeeds.vyMetersPerSecond);
+            this.startX = quantizeTranslation(start.getX());
+            this.startY = quantizeTranslation(start.getY());
+            this.startTheta = quantizeRotation(start.getRotation().getDegrees());
+            this.startSpeed = (int) Math.round(speed / Constants.Pathfinding.CACHE_SPEED_RESOLUTION);
+            // Same rule as TrajectoryHelper, slower robots leave towards the target whichever way they drift
+            this.startDirection = (speed > Constants.Pathfinding.MIN_HEADING_SPEED)
+                ? quantizeRotation(Math.toDegrees(Math.atan2(startSpeeds.vyMetersPerSecond, startSpeeds.vxMetersPerSecond)))
+                : -1;
+            this.endX = quantizeTranslation(end.getX());
+            this.endY = quantizeTranslation(end.getY());
+            this.endTheta = quantizeRotation(end.getRotation().getDegrees());
+        }
+
+        private static int quantizeTranslation(double meters) {
+            return (int) Math.round(meters / Constants.Pathfinding.CACHE_TRANSLATION_RESOLUTION);
+        }
+
+        private static int quantizeRotation(double degrees) {
+            int buckets = (int) Math.round(360.0 / Constants.Pathfinding.CACHE_ROTATION_RESOLUTION);
+            return Math.floorMod((int) Math.round(degrees / Constants.Pathfinding.CACHE_ROTATION_RESOLUTION), buckets);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return startX == k.startX && startY == k.startY && startTheta == k.startTheta && startSpeed == k.startSpeed
+                && startDirection == k.startDirection
+                && endX == k.endX && endY == k.endY && endTheta == k.endTheta;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = startX;
+            h = 31 * h + startY;
+            h = 31 * h + startTheta;
+            h = 31 * h + startSpeed;
+            h = 31 * h + startDirection;
+            h = 31 * h + endX;
+            h = 31 * h + endY;
+            h = 31 * h + endTheta;
+            return h;
+        }
+    }
+
+    private final Map<Key, PathPlannerTrajectory> entries;
+
+    public TrajectoryCache(int capacity) {
+        this.entries = new LinkedHashMap<Key, PathPlannerTrajectory>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PathPlannerTrajectory> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return The cached trajectory, or null if there is none for these poses
+     */
+    public synchronized PathPlannerTrajectory get(Pose2d start, ChassisSpeeds startSpeeds, Pose2d end) {
+        return this.entries.get(new Key(start, startSpeeds, end));
+    }
+
+    /**
+     * @param startSpeeds Field relative velocity the trajectory was generated from
+     */
+    public synchronized void put(Pose2d start, ChassisSpeeds startSpeeds, Pose2d end, PathPlannerTrajectory trajectory) {
+        this.entries.put(new Key(start, startSpeeds, end), trajectory);
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+}
@@ -2,18 +2,25 @@ package frc.robot.utils;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import com.pathplanner.lib.PathConstraints;
 import com.pathplanner.lib.PathPlanner;
 import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPoint;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.math.trajectory.TrajectoryUtil;
 import frc.robot.Constants;
+import frc.robot.config.RobotConfig;
+import frc.robot.utils.nav.GridPathfinder;
 
 
 public class TrajectoryHelper {
@@ -38,7 +45,73 @@ public class TrajectoryHelper {
 
     public static PathPlannerTrajectory loadHolonomicPathPlannerTrajectory (String filename) {
         // return PathPlanner.loadPath(filename, 3.5, 3);
-        return PathPlanner.loadPath(filename, Constants.Auton.MAX_SPEED_MPS, Constants.Auton.MAX_ACCELERATION_MPSS, false);
+        return PathPlanner.loadPath(filename, RobotConfig.getInstance().auton.maxSpeed, RobotConfig.getInstance().auton.maxAcceleration, false);
+    }
+
+    /**
+     * Generate a holonomic trajectory from the robot's current state to a target pose. Slow, run it
+     * through the {@link frc.lib.util.AsyncWorker} rather than on the robot loop.
+     *
+     * @param start Current robot pose
+     * @param fieldSpeeds Current field relative robot velocity
+     * @param end Target pose
+     * @param constraints Velocity and acceleration limits
+     */
+    public static PathPlannerTrajectory createHolonomicTrajectory (Pose2d start,
+                                                                    ChassisSpeeds fieldSpeeds,
+                                                                    Pose2d end,
+                                                                    PathConstraints constraints) {
+        Translation2d delta = end.getTranslation().minus(start.getTranslation());
+        double speed = Math.hypot(fieldSpeeds.vxMetersPerSecond, fieldSpeeds.vyMetersPerSecond);
+
+        // Leave along the current direction of travel if moving, otherwise head straight for the target
+        Rotation2d startHeading = (speed > Constants.Pathfinding.MIN_HEADING_SPEED)
+            ? new Rotation2d(fieldSpeeds.vxMetersPerSecond, fieldSpeeds.vyMetersPerSecond)
+            : new Rotation2d(delta.getX(), delta.getY());
+        Rotation2d endHeading = new Rotation2d(delta.getX(), delta.getY());
+
+        return PathPlanner.generatePath(
+            constraints,
+            new PathPoint(start.getTranslation(), startHeading, start.getRotation(), speed),
+            new PathPoint(end.getTranslation(), endHeading, end.getRotation())
+        );
+    }
+
+    /**
+     * Generate a holonomic trajectory like {@link #createHolonomicTrajectory} that routes around the
+     * obstacles in the pathfinder's field grid, turning to the target rotation along the way. Falls
+     * back to the direct trajectory when the grid has no route, for example when the target is up
+     * against an obstacle.
+     *
+     * @param pathfinder Not thread safe, owned by the calling thread
+     */
+    public static PathPlannerTrajectory createObstacleAvoidingTrajectory (Pose2d start,
+                                                                          ChassisSpeeds fieldSpeeds,
+                                                                          Pose2d end,
+                                                                          GridPathfinder pathfinder,
+                                                                          PathConstraints constraints) {
+        List<Translation2d> route = pathfinder.findPath(start.getTranslation(), end.getTranslation());
+        if (route.size() <= 2) {
+            return createHolonomicTrajectory(start, fieldSpeeds, end, constraints);
+        }
+
+        double speed = Math.hypot(fieldSpeeds.vxMetersPerSecond, fieldSpeeds.vyMetersPerSecond);
+        Translation2d first = route.get(1).minus(route.get(0));
+        Rotation2d startHeading = (speed > Constants.Pathfinding.MIN_HEADING_SPEED)
+            ? new Rotation2d(fieldSpeeds.vxMetersPerSecond, fieldSpeeds.vyMetersPerSecond)
+            : new Rotation2d(first.getX(), first.getY());
+
+        List<PathPoint> points = new ArrayList<>(route.size());
+        points.add(new PathPoint(start.getTranslation(), startHeading, start.getRotation(), speed));
+        for (int i = 1; i < route.size() - 1; i++) {
+            // Pass through each corner along the line joining its neighbours
+            Translation2d through = route.get(i + 1).minus(route.get(i - 1));
+            points.add(new PathPoint(route.get(i), new Rotation2d(through.getX(), through.getY()), end.getRotation()));
+        }
+        Translation2d last = route.get(route.size() - 1).minus(route.get(route.size() - 2));
+        points.add(new PathPoint(end.getTranslation(), new Rotation2d(last.getX(), last.getY()), end.getRotation()));
+
+        return PathPlanner.generatePath(constraints, points);
     }
 
     public static Trajectory createTrajectory (Pose2d initial,
@@ -48,7 +121,7 @@ public class TrajectoryHelper {
                                                 double maxAcceleration) {
 
         TrajectoryConfig config = new TrajectoryConfig(maxSpeed, maxAcceleration)
-            .setKinematics(Constants.SwerveDrivetrain.SWERVE_KINEMATICS);
+            .setKinematics(RobotConfig.getInstance().swerve.createKinematics());
 
         Trajectory trajectory =
             TrajectoryGenerator.generateTrajectory(
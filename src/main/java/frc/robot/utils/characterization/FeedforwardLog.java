@@ -0,0 +1,122 @@
+package frc.robot.utils.characterization;
+
+import java.util.Properties;
+
+import frc.lib.math.IncrementalLeastSquares;
+import frc.lib.util.DeployProperties;
+
+/**
+ * Voltage, velocity and acceleration samples for one mechanism, with a running least squares fit
+ * of V = kS * sgn(v) + kV * v + kA * a. Quasistatic and dynamic runs of the same mechanism should
+ * share a log so the fit sees both.
+ */
+public class FeedforwardLog {
+
+    private final String configName;
+    private final double minVelocity;
+
+    private final double[] voltage;
+    private final double[] velocity;
+    private final double[] acceleration;
+    private int size = 0;
+
+    private final IncrementalLeastSquares fit = new IncrementalLeastSquares(3);
+    private final double[] row = new double[3];
+
+    private boolean solved = false;
+
+    /**
+     * @param configName Deploy file the fit is written to, see {@link DeployProperties}
+     * @param capacity Maximum number of samples kept
+     * @param minVelocity Samples slower than this are logged but left out of the fit (static friction)
+     */
+    public FeedforwardLog(String configName, int capacity, double minVelocity) {
+        this.configName = configName;
+        this.minVelocity = minVelocity;
+        this.voltage = new double[capacity];
+        this.velocity = new double[capacity];
+        this.acceleration = new double[capacity];
+    }
+
+    public boolean isFull() {
+        return size == voltage.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(double volts, double vel, double accel) {
+        if (isFull()) {
+            return;
+        }
+        voltage[size] = volts;
+        velocity[size] = vel;
+        acceleration[size] = accel;
+        size++;
+
+        if (Math.abs(vel) >= minVelocity) {
+            row[0] = Math.signum(vel);
+            row[1] = vel;
+            row[2] = accel;
+            fit.add(row, volts);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        solved = false;
+        fit.reset();
+    }
+
+    /**
+     * @return True if there was enough data for a fit
+     */
+    public boolean solve() {
+        solved = fit.solve();
+        return solved;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    public double getkS() {
+        return fit.getCoefficient(0);
+    }
+
+    public double getkV() {
+        return fit.getCoefficient(1);
+    }
+
+    public double getkA() {
+        return fit.getCoefficient(2);
+    }
+
+    public double getVoltage(int i) {
+        return voltage[i];
+    }
+
+    public double getVelocity(int i) {
+        return velocity[i];
+    }
+
+    public double getAcceleration(int i) {
+        return acceleration[i];
+    }
+
+    /**
+     * Write kS, kV and kA (in volts) to the deploy directory.
+     */
+    public boolean save() {
+        if (!solved) {
+            return false;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("kS", Double.toString(getkS()));
+        properties.setProperty("kV", Double.toString(getkV()));
+        properties.setProperty("kA", Double.toString(getkA()));
+        properties.setProperty("samples", Integer.toString(fit.getSampleCount()));
+        return DeployProperties.save(configName, properties, "Feedforward characterization (volts)");
+    }
+}
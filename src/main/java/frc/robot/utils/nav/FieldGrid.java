@@ -0,0 +1,203 @@
+package frc.robot.utils.nav;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants;
+
+/**
+ * Precomputed traversal cost for every cell of the field. A cost of 0 is open floor, higher
+ * costs are areas to avoid (charge station edges, near walls) and {@link #BLOCKED} cells cannot be
+ * entered at all. Obstacles are expected to already be inflated by the robot radius.
+ *
+ * <p>File format (big endian): int magic, int width, int height, float cell size in meters, then
+ * width * height shorts in row major order starting at the field origin. {@link FieldGridGenerator}
+ * writes it from the obstacle outlines in nav/field.json.
+ */
+public class FieldGrid {
+
+    public static final short BLOCKED = Short.MAX_VALUE;
+    private static final int MAGIC = 0x46475244;    // "FGRD"
+
+    private final int width;
+    private final int height;
+    private final double cellSize;
+    private final short[] cost;
+
+    public FieldGrid(int width, int height, double cellSize, short[] cost) {
+        if (cost.length != width * height) {
+            throw new IllegalArgumentException("Grid is " + width + "x" + height + " but has " + cost.length + " cells");
+        }
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.cost = cost;
+    }
+
+    /**
+     * @param name Path relative to the deploy directory, without extension
+     * @return The stored grid, or an empty field with walls if it can't be read
+     */
+    public static FieldGrid load(String name) {
+        Path path = Filesystem.getDeployDirectory().toPath().resolve(name + ".grid");
+        if (!Files.exists(path)) {
+            DriverStation.reportWarning("No field grid at " + path.toString() + ", using an empty field", false);
+            return emptyField();
+        }
+
+        try {
+            return read(path);
+        } catch (IOException e) {
+            DriverStation.reportError("Unable to read field grid at " + path.toString(), e.getStackTrace());
+            return emptyField();
+        }
+    }
+
+    public static FieldGrid read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a field grid");
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            double cellSize = in.readFloat();
+            short[] cost = new short[width * height];
+            for (int i = 0; i < cost.length; i++) {
+                cost[i] = in.readShort();
+            }
+            return new FieldGrid(width, height, cellSize, cost);
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeFloat((float) cellSize);
+            for (int i = 0; i < cost.length; i++) {
+                out.writeShort(cost[i]);
+            }
+        }
+    }
+
+    /**
+     * @return Open field with the walls inflated by the robot radius
+     */
+    public static FieldGrid emptyField() {
+        double cellSize = Constants.Navigation.GRID_CELL_SIZE;
+        int width = (int) Math.ceil(Constants.Navigation.FIELD_LENGTH / cellSize);
+        int height = (int) Math.ceil(Constants.Navigation.FIELD_WIDTH / cellSize);
+        int margin = (int) Math.ceil(Constants.Navigation.ROBOT_RADIUS / cellSize);
+
+        short[] cost = new short[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x < margin || y < margin || x >= width - margin || y >= height - margin) {
+                    cost[y * width + x] = BLOCKED;
+                }
+            }
+        }
+        return new FieldGrid(width, height, cellSize, cost);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellCount() {
+        return cost.length;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public int cellX(int index) {
+        return index % width;
+    }
+
+    public int cellY(int index) {
+        return index / width;
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public short getCost(int index) {
+        return cost[index];
+    }
+
+    public boolean isBlocked(int index) {
+        return cost[index] == BLOCKED;
+    }
+
+    /**
+     * @param meters Field coordinate
+     * @return Cell containing it, clamped to the grid
+     */
+    public int toCellX(double meters) {
+        return Math.max(0, Math.min(width - 1, (int) Math.floor(meters / cellSize)));
+    }
+
+    public int toCellY(double meters) {
+        return Math.max(0, Math.min(height - 1, (int) Math.floor(meters / cellSize)));
+    }
+
+    /**
+     * @return Field coordinate of the center of the cell
+     */
+    public double toMeters(int cell) {
+        return (cell + 0.5) * cellSize;
+    }
+
+    /**
+     * Walk the cells between two cells (Bresenham) and check that all of them are free floor.
+     * Costly but passable cells also break line of sight so the search routes them on the grid,
+     * where their cost is counted.
+     */
+    public boolean hasLineOfSight(int x0, int y0, int x1, int y1) {
+        int dx = Math.abs(x1 - x0);
+        int dy = Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = dx - dy;
+
+        int x = x0;
+        int y = y0;
+        while (true) {
+            if (cost[index(x, y)] != 0) {
+                return false;
+            }
+            if (x == x1 && y == y1) {
+                return true;
+            }
+            int e2 = 2 * err;
+            if (e2 > -dy) {
+                err -= dy;
+                x += sx;
+            }
+            if (e2 < dx) {
+                err += dx;
+                y += sy;
+            }
+        }
+    }
+}
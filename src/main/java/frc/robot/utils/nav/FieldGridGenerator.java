@@ -0,0 +1,156 @@
+package frc.robot.utils.nav;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import frc.robot.Constants;
+
+/**
+ * Rasterizes obstacle outlines into the {@link FieldGrid} the robot loads. Solid obstacles and the
+ * field walls block every cell closer than the robot radius, with a clearance band around them
+ * that costs more the closer it gets. Obstacles with a "cost" can be driven over and only cost that
+ * much, inflated the same way.
+ *
+ * <pre>
+ * {
+ *   "obstacles": [
+ *     { "name": "Blue grid", "polygon": [[0.0, 0.0], [1.38, 0.0], [1.38, 5.49], [0.0, 5.49]] },
+ *     { "name": "Blue charge station", "polygon": [...], "cost": 200 }
+ *   ]
+ * }
+ * </pre>
+ *
+ * Run with ./gradlew fieldGrid after changing nav/field.json, and commit the grid it writes.
+ */
+public final class FieldGridGenerator {
+
+    private static final class Obstacle {
+        final double[] xs;
+        final double[] ys;
+        final short cost;
+
+        Obstacle(double[] xs, double[] ys, short cost) {
+            this.xs = xs;
+            this.ys = ys;
+            this.cost = cost;
+        }
+
+        /**
+         * @return Distance from the point to the polygon, 0 inside it
+         */
+        double distance(double x, double y) {
+            boolean inside = false;
+            double nearest = Double.POSITIVE_INFINITY;
+            for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+                if ((ys[i] > y) != (ys[j] > y) && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                    inside = !inside;
+                }
+                nearest = Math.min(nearest, segmentDistance(x, y, xs[j], ys[j], xs[i], ys[i]));
+            }
+            return inside ? 0.0 : nearest;
+        }
+    }
+
+    private FieldGridGenerator() {}
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: FieldGridGenerator <obstacles json> <output grid>");
+            System.exit(2);
+        }
+        Path output = Paths.get(args[1]);
+        FieldGrid grid = generate(new ObjectMapper().readTree(Paths.get(args[0]).toFile()));
+        grid.save(output);
+
+        int blocked = 0;
+        int costly = 0;
+        for (int i = 0; i < grid.getCellCount(); i++) {
+            if (grid.isBlocked(i)) {
+                blocked++;
+            } else if (grid.getCost(i) != 0) {
+                costly++;
+            }
+        }
+        System.out.println(String.format("Wrote %s, %dx%d cells of %.2f m, %d blocked, %d with a cost",
+            output.toString(), grid.getWidth(), grid.getHeight(), grid.getCellSize(), blocked, costly));
+    }
+
+    public static FieldGrid generate(JsonNode field) {
+        List<Obstacle> obstacles = new ArrayList<>();
+        for (JsonNode node : field.path("obstacles")) {
+            obstacles.add(readObstacle(node));
+        }
+
+        double cellSize = Constants.Navigation.GRID_CELL_SIZE;
+        double length = Constants.Navigation.FIELD_LENGTH;
+        double width = Constants.Navigation.FIELD_WIDTH;
+        double radius = Constants.Navigation.ROBOT_RADIUS;
+        double clearance = Constants.Navigation.CLEARANCE;
+        int columns = (int) Math.ceil(length / cellSize);
+        int rows = (int) Math.ceil(width / cellSize);
+
+        short[] cost = new short[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            double y = (row + 0.5) * cellSize;
+            for (int column = 0; column < columns; column++) {
+                double x = (column + 0.5) * cellSize;
+
+                // Walls are a solid obstacle around the whole field
+                double solid = Math.min(Math.min(x, length - x), Math.min(y, width - y));
+                int cell = 0;
+                for (Obstacle obstacle : obstacles) {
+                    double distance = obstacle.distance(x, y);
+                    if (obstacle.cost == FieldGrid.BLOCKED) {
+                        solid = Math.min(solid, distance);
+                    } else if (distance < radius) {
+                        cell = Math.max(cell, obstacle.cost);
+                    }
+                }
+
+                if (solid < radius) {
+                    cell = FieldGrid.BLOCKED;
+                } else if (solid < radius + clearance) {
+                    double closeness = 1.0 - (solid - radius) / clearance;
+                    cell = Math.max(cell, (int) Math.ceil(closeness * Constants.Navigation.CLEARANCE_COST));
+                }
+                cost[row * columns + column] = (short) cell;
+            }
+        }
+        return new FieldGrid(columns, rows, cellSize, cost);
+    }
+
+    private static Obstacle readObstacle(JsonNode node) {
+        String name = node.path("name").asText("obstacle");
+        JsonNode polygon = node.path("polygon");
+        if (polygon.size() < 3) {
+            throw new IllegalArgumentException(name + " needs at least three corners");
+        }
+        double[] xs = new double[polygon.size()];
+        double[] ys = new double[polygon.size()];
+        for (int i = 0; i < polygon.size(); i++) {
+            xs[i] = polygon.get(i).get(0).asDouble();
+            ys[i] = polygon.get(i).get(1).asDouble();
+        }
+
+        int cost = node.path("cost").asInt(FieldGrid.BLOCKED);
+        if (cost <= 0 || cost > FieldGrid.BLOCKED) {
+            throw new IllegalArgumentException(name + " has cost " + cost + ", expected 1 to " + FieldGrid.BLOCKED);
+        }
+        return new Obstacle(xs, ys, (short) cost);
+    }
+
+    private static double segmentDistance(double x, double y, double x0, double y0, double x1, double y1) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = (lengthSquared > 0.0) ? ((x - x0) * dx + (y - y0) * dy) / lengthSquared : 0.0;
+        t = Math.max(0.0, Math.min(1.0, t));
+        return Math.hypot(x - (x0 + t * dx), y - (y0 + t * dy));
+    }
+}
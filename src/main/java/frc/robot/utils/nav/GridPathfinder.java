@@ -0,0 +1,258 @@
+package frc.robot.utils.nav;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.Constants;
+
+/**
+ * Any-angle (Theta*) search over a {@link FieldGrid}. All search state lives in primitive arrays
+ * sized to the grid and is stamped with a search generation, so starting a new search is O(1)
+ * instead of clearing every array. When asked for the same goal again, the previous path is reused
+ * from the furthest vertex the robot can see directly, and only a fresh search falls back to the
+ * full Theta* expansion.
+ *
+ * <p>Not thread safe, give each thread its own instance.
+ */
+public class GridPathfinder {
+
+    private static final int[] DX = { 1, 1, 0, -1, -1, -1, 0, 1 };
+    private static final int[] DY = { 0, 1, 1, 1, 0, -1, -1, -1 };
+    private static final double SQRT2 = Math.sqrt(2.0);
+
+    private final FieldGrid grid;
+
+    /* Per cell search state, only valid where seen[cell] == generation */
+    private final double[] g;
+    private final double[] f;
+    private final int[] parent;
+    private final int[] seen;
+    private final int[] closed;
+    private final int[] heapIndex;
+    private int generation = 0;
+
+    /* Open set, a binary min heap of cells ordered by f */
+    private final int[] heap;
+    private int heapSize = 0;
+
+    /* Vertices of the last path, start to goal */
+    private final int[] path;
+    private int pathLength = 0;
+    private int lastGoal = -1;
+
+    private int expansions = 0;
+
+    public GridPathfinder(FieldGrid grid) {
+        int cells = grid.getCellCount();
+        this.grid = grid;
+        this.g = new double[cells];
+        this.f = new double[cells];
+        this.parent = new int[cells];
+        this.seen = new int[cells];
+        this.closed = new int[cells];
+        this.heapIndex = new int[cells];
+        this.heap = new int[cells];
+        this.path = new int[cells];
+    }
+
+    public FieldGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return Cells expanded by the last full search, for profiling
+     */
+    public int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Find a path between two field positions.
+     *
+     * @return Waypoints from start to goal inclusive, empty if the goal can't be reached
+     */
+    public List<Translation2d> findPath(Translation2d start, Translation2d goal) {
+        int startCell = grid.index(grid.toCellX(start.getX()), grid.toCellY(start.getY()));
+        int goalCell = grid.index(grid.toCellX(goal.getX()), grid.toCellY(goal.getY()));
+
+        if (grid.isBlocked(goalCell)) {
+            pathLength = 0;
+            lastGoal = -1;
+            return new ArrayList<>();
+        }
+
+        if (!reusePath(startCell, goalCell) && !search(startCell, goalCell)) {
+            pathLength = 0;
+            lastGoal = -1;
+            return new ArrayList<>();
+        }
+        lastGoal = goalCell;
+
+        List<Translation2d> waypoints = new ArrayList<>(pathLength);
+        waypoints.add(start);
+        for (int i = 1; i < pathLength - 1; i++) {
+            waypoints.add(new Translation2d(grid.toMeters(grid.cellX(path[i])), grid.toMeters(grid.cellY(path[i]))));
+        }
+        waypoints.add(goal);
+        return waypoints;
+    }
+
+    /**
+     * Replan towards the same goal by joining the previous path at the furthest vertex in sight.
+     */
+    private boolean reusePath(int startCell, int goalCell) {
+        if (goalCell != lastGoal || pathLength == 0) {
+            return false;
+        }
+        int sx = grid.cellX(startCell);
+        int sy = grid.cellY(startCell);
+        for (int i = pathLength - 1; i > 0; i--) {
+            if (grid.hasLineOfSight(sx, sy, grid.cellX(path[i]), grid.cellY(path[i]))) {
+                int kept = pathLength - i;
+                System.arraycopy(path, i, path, 1, kept);
+                path[0] = startCell;
+                pathLength = kept + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double distance(int a, int b) {
+        double dx = grid.cellX(a) - grid.cellX(b);
+        double dy = grid.cellY(a) - grid.cellY(b);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private boolean search(int startCell, int goalCell) {
+        generation++;
+        heapSize = 0;
+        expansions = 0;
+
+        visit(startCell, 0.0, startCell, goalCell);
+
+        while (heapSize > 0) {
+            int current = pop();
+            if (current == goalCell) {
+                buildPath(startCell, goalCell);
+                return true;
+            }
+            closed[current] = generation;
+            if (++expansions > Constants.Navigation.MAX_EXPANSIONS) {
+                return false;
+            }
+
+            int cx = grid.cellX(current);
+            int cy = grid.cellY(current);
+            int currentParent = parent[current];
+            int px = grid.cellX(currentParent);
+            int py = grid.cellY(currentParent);
+
+            for (int dir = 0; dir < 8; dir++) {
+                int nx = cx + DX[dir];
+                int ny = cy + DY[dir];
+                if (!grid.inBounds(nx, ny)) {
+                    continue;
+                }
+                int neighbor = grid.index(nx, ny);
+                if (grid.isBlocked(neighbor) || closed[neighbor] == generation) {
+                    continue;
+                }
+                boolean diagonal = (dir & 1) == 1;
+                if (diagonal && (grid.isBlocked(grid.index(cx + DX[dir], cy)) || grid.isBlocked(grid.index(cx, cy + DY[dir])))) {
+                    continue;   // Don't cut corners
+                }
+
+                if (grid.hasLineOfSight(px, py, nx, ny)) {
+                    visit(neighbor, g[currentParent] + distance(currentParent, neighbor), currentParent, goalCell);
+                } else {
+                    double step = (diagonal ? SQRT2 : 1.0) * (1.0 + grid.getCost(neighbor) / Constants.Navigation.COST_SCALE);
+                    visit(neighbor, g[current] + step, current, goalCell);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void visit(int cell, double cost, int from, int goalCell) {
+        if (seen[cell] != generation) {
+            seen[cell] = generation;
+            g[cell] = cost;
+            parent[cell] = from;
+            f[cell] = cost + distance(cell, goalCell);
+            push(cell);
+        } else if (cost < g[cell]) {
+            g[cell] = cost;
+            parent[cell] = from;
+            f[cell] = cost + distance(cell, goalCell);
+            siftUp(heapIndex[cell]);
+        }
+    }
+
+    private void buildPath(int startCell, int goalCell) {
+        int length = 1;
+        for (int cell = goalCell; cell != startCell; cell = parent[cell]) {
+            length++;
+        }
+        pathLength = length;
+        int cell = goalCell;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = cell;
+            cell = parent[cell];
+        }
+    }
+
+    /* Binary heap */
+    private void push(int cell) {
+        heap[heapSize] = cell;
+        heapIndex[cell] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int cell = heap[i];
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (f[heap[up]] <= f[cell]) {
+                break;
+            }
+            heap[i] = heap[up];
+            heapIndex[heap[i]] = i;
+            i = up;
+        }
+        heap[i] = cell;
+        heapIndex[cell] = i;
+    }
+
+    private void siftDown(int i) {
+        int cell = heap[i];
+        int half = heapSize >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && f[heap[right]] < f[heap[child]]) {
+                child = right;
+            }
+            if (f[cell] <= f[heap[child]]) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = cell;
+        heapIndex[cell] = i;
+    }
+}
@@ -0,0 +1,95 @@
+package frc.robot.utils.swerve;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+
+/**
+ * Yaw and yaw rate of the robot, read from the gyro once per loop with the time they were read.
+ * Every consumer in the loop gets the same sample instead of each reading the gyro again. Field
+ * relative driving asks for the heading extrapolated to when the command actually drives the
+ * modules, so the robot does not curve away while it spins.
+ */
+public class GyroHeading {
+
+    private final GyroIO gyro;
+    private final boolean inverted;
+
+    /* Loop sample, counter clockwise positive */
+    private double timestamp;
+    private double yaw;         // radians, not wrapped
+    private double rate;        // radians per second
+    private Rotation2d rotation = new Rotation2d();
+
+    public GyroHeading(GyroIO gyro, boolean inverted) {
+        this.gyro = gyro;
+        this.inverted = inverted;
+    }
+
+    /**
+     * Sample the gyro. Called at the start of the loop with the other sensors.
+     */
+    public void update() {
+        this.timestamp = Timer.getFPGATimestamp();
+        double rate = this.gyro.getYawRate();
+        double degrees = this.gyro.getYaw();
+        this.yaw = Math.toRadians(this.inverted ? -degrees : degrees);
+        this.rate = Math.toRadians(this.inverted ? -rate : rate);
+        this.rotation = toRotation(this.yaw);
+    }
+
+    /**
+     * Set the heading, taking effect in this loop's sample as well as on the gyro.
+     */
+    public void reset(double degrees) {
+        this.gyro.setYaw(this.inverted ? -degrees : degrees);
+        this.yaw = Math.toRadians(degrees);
+        this.rotation = toRotation(this.yaw);
+    }
+
+    private static Rotation2d toRotation(double radians) {
+        // 0 to 360 degrees, like the heading odometry has always been given
+        return Rotation2d.fromDegrees(MathUtil.inputModulus(Math.toDegrees(radians), 0.0, 360.0));
+    }
+
+    /**
+     * @return Heading at the time of the loop sample
+     */
+    public Rotation2d getYaw() {
+        return this.rotation;
+    }
+
+    /**
+     * @return Heading in radians at the time of the loop sample, without wrapping
+     */
+    public double getYawRadians() {
+        return this.yaw;
+    }
+
+    /**
+     * @return Yaw rate in radians per second
+     */
+    public double getRate() {
+        return this.rate;
+    }
+
+    public double getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * @param time FPGA time in seconds, close to the loop sample
+     * @return Heading extrapolated from the loop sample at the sampled rate
+     */
+    public Rotation2d getYawAt(double time) {
+        return toRotation(this.yaw + this.rate * (time - this.timestamp));
+    }
+
+    /**
+     * @return Heading the robot will have while this loop's module commands are driving it
+     */
+    public Rotation2d getCommandYaw() {
+        return getYawAt(this.timestamp + Constants.SwerveDrivetrain.HEADING_LOOKAHEAD);
+    }
+}
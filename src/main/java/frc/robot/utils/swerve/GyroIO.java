@@ -0,0 +1,25 @@
+package frc.robot.utils.swerve;
+
+/**
+ * The gyro under {@link GyroHeading}, so the drivetrain runs the same against the Pigeon on the
+ * robot and against a simulated one.
+ */
+public interface GyroIO {
+
+    /**
+     * @return Yaw in degrees, not wrapped, before any inversion
+     */
+    double getYaw();
+
+    /**
+     * @return Yaw rate in degrees per second, before any inversion
+     */
+    double getYawRate();
+
+    void setYaw(double degrees);
+
+    /**
+     * @param acceleration Filled with forward, left and up acceleration in m/s^2, gravity included
+     */
+    void getAcceleration(double[] acceleration);
+}
@@ -0,0 +1,63 @@
+package frc.robot.utils.swerve;
+
+import com.ctre.phoenix.ErrorCode;
+
+/**
+ * The motors and absolute encoder of one swerve module. {@link SwerveModule} does the module
+ * logic on top of this, so it runs the same against the Talons on the robot and against a
+ * simulation. Drive is measured in wheel rotations, so the wheel diameter calibration stays in
+ * SwerveModule, and steering in degrees at the module, not wrapped.
+ */
+public interface ModuleIO {
+
+    /* Sensors, read directly. SwerveModule samples them once per loop */
+    double getDriveRotations();
+    double getDriveVelocity();      // wheel rotations per second
+    double getAngle();              // integrated sensor, degrees
+    double getAngleVelocity();      // degrees per second
+
+    /**
+     * @return Absolute encoder reading in degrees, before the module's offset is removed
+     */
+    double getAbsoluteAngle();
+
+    /**
+     * Re-seed the integrated steering sensor.
+     */
+    void seedAngle(double degrees);
+
+    /* Absolute encoder health */
+    ErrorCode getAbsoluteEncoderError();
+    double getAbsoluteEncoderTimestamp();   // seconds
+
+    /**
+     * @return True if the absolute encoder or angle motor rebooted since the last call
+     */
+    boolean hasDeviceReset();
+
+    /* Outputs */
+    void setDriveOpenLoop(double percent);
+
+    /**
+     * @param feedforward Arbitrary feedforward in percent output
+     */
+    void setDriveVelocity(double rotationsPerSecond, double feedforward);
+
+    /**
+     * Steer with the closed loop the module is configured for, plain position or Motion Magic.
+     */
+    void setAngle(double degrees);
+
+    void setAngleOpenLoop(double percent);
+
+    /* Gains of the active slots and the drive supply limit, changed at runtime */
+    void setAngleKP(double kP);
+    void setAngleKD(double kD);
+    void setDriveKP(double kP);
+    void setDriveSupplyCurrentLimit(double amps);
+
+    double getDriveSupplyCurrent();
+    double getDriveStatorCurrent();
+    double getAngleSupplyCurrent();
+    double getAngleStatorCurrent();
+}
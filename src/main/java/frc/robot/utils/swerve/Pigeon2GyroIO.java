@@ -0,0 +1,41 @@
+package frc.robot.utils.swerve;
+
+import com.ctre.phoenix.sensors.Pigeon2;
+
+public class Pigeon2GyroIO implements GyroIO {
+
+    private static final double ACCEL_PER_COUNT = 9.80665 / 16384.0;    // Pigeon2 reports 1 g as 2^14
+
+    private final Pigeon2 gyro;
+    private final double[] rates = new double[3];
+    private final short[] accelerometer = new short[3];
+
+    public Pigeon2GyroIO(int id) {
+        this.gyro = new Pigeon2(id);
+        this.gyro.configFactoryDefault();
+    }
+
+    @Override
+    public double getYaw() {
+        return this.gyro.getYaw();
+    }
+
+    @Override
+    public double getYawRate() {
+        this.gyro.getRawGyro(this.rates);
+        return this.rates[2];
+    }
+
+    @Override
+    public void setYaw(double degrees) {
+        this.gyro.setYaw(degrees);
+    }
+
+    @Override
+    public void getAcceleration(double[] acceleration) {
+        this.gyro.getBiasedAccelerometer(this.accelerometer);
+        for (int i = 0; i < 3; i++) {
+            acceleration[i] = this.accelerometer[i] * ACCEL_PER_COUNT;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package frc.robot.utils.swerve;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.Constants;
+
+/**
+ * Fits one rigid body velocity (vx, vy, omega) to the measured module velocities and the gyro rate
+ * each loop with iteratively reweighted least squares. Modules that disagree with the fit are
+ * slipping or being pushed and get a weight below one, which odometry uses to blend their
+ * measured distance with the distance the fit says they should have covered. Horizontal
+ * accelerometer readings far from the acceleration the wheels see are flagged as collisions.
+ *
+ * <p>Everything is held in primitive fields and arrays so update() does not allocate.
+ */
+public class SlipDetector {
+
+    private final int count;
+    private final double[] moduleX;
+    private final double[] moduleY;
+
+    /* Per module results of the last update */
+    private final double[] measuredX;
+    private final double[] measuredY;
+    private final double[] residual;
+    private final double[] weight;
+    private final boolean[] slipping;
+
+    /* Fitted robot relative velocity */
+    private double vx;
+    private double vy;
+    private double omega;
+    private double lastVx;
+    private double lastVy;
+    private boolean hasLastFit = false;
+
+    private double gyroDisagreement;
+    private double unexplainedAccel;
+    private int collisionLoops = 0;
+    private int collisionCount = 0;
+
+    public SlipDetector(Translation2d[] moduleLocations) {
+        this.count = moduleLocations.length;
+        this.moduleX = new double[count];
+        this.moduleY = new double[count];
+        this.measuredX = new double[count];
+        this.measuredY = new double[count];
+        this.residual = new double[count];
+        this.weight = new double[count];
+        this.slipping = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            this.moduleX[i] = moduleLocations[i].getX();
+            this.moduleY[i] = moduleLocations[i].getY();
+            this.weight[i] = 1.0;
+        }
+    }
+
+    /**
+     * @param speeds Module wheel speeds, meters per second
+     * @param angles Module angles, radians
+     * @param gyroRate Yaw rate from the gyro, radians per second counter clockwise
+     * @param accelX Robot relative forward acceleration from the IMU, meters per second squared
+     * @param accelY Robot relative leftward acceleration from the IMU, meters per second squared
+     * @param dt Seconds since the last update
+     */
+    public void update(double[] speeds, double[] angles, double gyroRate, double accelX, double accelY, double dt) {
+        for (int i = 0; i < count; i++) {
+            measuredX[i] = speeds[i] * Math.cos(angles[i]);
+            measuredY[i] = speeds[i] * Math.sin(angles[i]);
+            weight[i] = 1.0;
+        }
+
+        // Modules alone first, to see how far their rotation is from the gyro
+        fit(0.0, gyroRate);
+        gyroDisagreement = Math.abs(omega - gyroRate);
+
+        updateCollision(accelX, accelY, dt);
+
+        // While being hit, trust the wheels less
+        double threshold = Constants.SwerveDrivetrain.SLIP_RESIDUAL_MIN
+            + Constants.SwerveDrivetrain.SLIP_RESIDUAL_FRACTION * Math.hypot(vx, vy);
+        if (isColliding()) {
+            threshold *= 0.5;
+        }
+
+        for (int iteration = 0; iteration < Constants.SwerveDrivetrain.SLIP_ITERATIONS; iteration++) {
+            fit(Constants.SwerveDrivetrain.SLIP_GYRO_WEIGHT, gyroRate);
+            for (int i = 0; i < count; i++) {
+                double r = residual[i];
+                // Cauchy style weight, modules well past the threshold barely count
+                weight[i] = (r <= threshold) ? 1.0 : (threshold * threshold) / (r * r);
+            }
+        }
+        fit(Constants.SwerveDrivetrain.SLIP_GYRO_WEIGHT, gyroRate);
+
+        for (int i = 0; i < count; i++) {
+            slipping[i] = residual[i] > threshold;
+        }
+    }
+
+    /**
+     * Weighted least squares for (vx, vy, omega) using the current module weights, then refresh
+     * the residuals against the result. The 3x3 normal equations are solved by Cramer's rule.
+     */
+    private void fit(double gyroWeight, double gyroRate) {
+        double a00 = 0.0, a02 = 0.0, a12 = 0.0, a22 = gyroWeight;
+        double b0 = 0.0, b1 = 0.0, b2 = gyroWeight * gyroRate;
+        for (int i = 0; i < count; i++) {
+            double w = weight[i];
+            double x = moduleX[i];
+            double y = moduleY[i];
+            a00 += w;
+            a02 -= w * y;
+            a12 += w * x;
+            a22 += w * (x * x + y * y);
+            b0 += w * measuredX[i];
+            b1 += w * measuredY[i];
+            b2 += w * (x * measuredY[i] - y * measuredX[i]);
+        }
+        double a11 = a00;   // the x and y rows carry the same weights, a01 is always zero
+
+        double det = a00 * (a11 * a22 - a12 * a12) - a02 * a02 * a11;
+        if (Math.abs(det) < 1e-9) {
+            // Every module discarded and no gyro, keep the last fit
+            return;
+        }
+        vx = (b0 * (a11 * a22 - a12 * a12) + a02 * (b1 * a12 - a11 * b2)) / det;
+        vy = (a00 * (b1 * a22 - a12 * b2) + a02 * (a12 * b0 - a02 * b1)) / det;
+        omega = (a00 * (a11 * b2 - a12 * b1) - a02 * a11 * b0) / det;
+
+        for (int i = 0; i < count; i++) {
+            double ex = measuredX[i] - (vx - omega * moduleY[i]);
+            double ey = measuredY[i] - (vy + omega * moduleX[i]);
+            residual[i] = Math.hypot(ex, ey);
+        }
+    }
+
+    private void updateCollision(double accelX, double accelY, double dt) {
+        if (hasLastFit && dt > 0.0) {
+            // Acceleration the wheels explain, including the centripetal term of the rotating frame
+            double wheelAx = (vx - lastVx) / dt - omega * vy;
+            double wheelAy = (vy - lastVy) / dt + omega * vx;
+            unexplainedAccel = Math.hypot(accelX - wheelAx, accelY - wheelAy);
+            if (unexplainedAccel > Constants.SwerveDrivetrain.COLLISION_ACCEL) {
+                if (collisionLoops == 0) {
+                    collisionCount++;
+                }
+                collisionLoops = Constants.SwerveDrivetrain.COLLISION_HOLD_LOOPS;
+            } else if (collisionLoops > 0) {
+                collisionLoops--;
+            }
+        }
+        lastVx = vx;
+        lastVy = vy;
+        hasLastFit = true;
+    }
+
+    public boolean isSlipping(int module) {
+        return slipping[module];
+    }
+
+    /**
+     * @return How much the module agreed with the fit, 1 for fully trusted down towards 0
+     */
+    public double getWeight(int module) {
+        return weight[module];
+    }
+
+    /**
+     * @return Distance from the module's measured velocity to the fitted one, meters per second
+     */
+    public double getResidual(int module) {
+        return residual[module];
+    }
+
+    /**
+     * @param module Module index
+     * @param angle Module angle in radians
+     * @return Fitted velocity of the module projected onto its wheel direction, meters per second
+     */
+    public double getFittedWheelSpeed(int module, double angle) {
+        double mx = vx - omega * moduleY[module];
+        double my = vy + omega * moduleX[module];
+        return mx * Math.cos(angle) + my * Math.sin(angle);
+    }
+
+    public double getVx() {
+        return vx;
+    }
+
+    public double getVy() {
+        return vy;
+    }
+
+    public double getOmega() {
+        return omega;
+    }
+
+    /**
+     * @return Difference between the modules' own rotation estimate and the gyro, radians per second
+     */
+    public double getGyroDisagreement() {
+        return gyroDisagreement;
+    }
+
+    /**
+     * @return Horizontal acceleration the wheels cannot account for, meters per second squared
+     */
+    public double getUnexplainedAcceleration() {
+        return unexplainedAccel;
+    }
+
+    public boolean isColliding() {
+        return collisionLoops > 0;
+    }
+
+    public int getCollisionCount() {
+        return collisionCount;
+    }
+
+    public int getSlippingCount() {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (slipping[i]) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,60 @@
+package frc.robot.utils.swerve;
+
+import java.util.Properties;
+
+import frc.lib.util.DeployProperties;
+import frc.robot.Constants;
+
+/**
+ * Calibrated wheel diameter and steering offsets, stored in the deploy directory and loaded by
+ * {@link SwerveModule} at boot. Anything missing from the file falls back to the robot config.
+ */
+public final class SwerveCalibration {
+
+    private static final String WHEEL_DIAMETER_KEY = "wheelDiameter";
+
+    private SwerveCalibration() {}
+
+    private static String angleOffsetKey(int module) {
+        return "mod" + module + ".angleOffset";
+    }
+
+    public static Properties load() {
+        return DeployProperties.load(Constants.Calibration.CONFIG);
+    }
+
+    /**
+     * @param fallback Nominal diameter from the robot config, in meters
+     * @return Effective wheel diameter in meters
+     */
+    public static double getWheelDiameter(Properties calibration, double fallback) {
+        return DeployProperties.getDouble(calibration, WHEEL_DIAMETER_KEY, fallback);
+    }
+
+    /**
+     * @return CANCoder reading in degrees when the module points straight ahead
+     */
+    public static double getAngleOffset(Properties calibration, int module, double fallback) {
+        return DeployProperties.getDouble(calibration, angleOffsetKey(module), fallback);
+    }
+
+    /**
+     * Store a new wheel diameter, keeping the offsets already in the file.
+     */
+    public static synchronized boolean saveWheelDiameter(double meters) {
+        Properties calibration = load();
+        calibration.setProperty(WHEEL_DIAMETER_KEY, Double.toString(meters));
+        return DeployProperties.save(Constants.Calibration.CONFIG, calibration, "Swerve calibration");
+    }
+
+    /**
+     * Store new steering offsets, keeping the wheel diameter already in the file.
+     */
+    public static synchronized boolean saveAngleOffsets(double[] offsets) {
+        Properties calibration = load();
+        for (int i = 0; i < offsets.length; i++) {
+            calibration.setProperty(angleOffsetKey(i), Double.toString(offsets[i]));
+        }
+        return DeployProperties.save(Constants.Calibration.CONFIG, calibration, "Swerve calibration");
+    }
+}
@@ -1,50 +1,67 @@
 package frc.robot.utils.swerve;
 
+import java.util.Properties;
+
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.RobotController;
 
-import frc.lib.math.Conversions;
 import frc.lib.util.CTREModuleState;
+import frc.lib.util.DeployProperties;
 import frc.robot.Constants;
-import frc.robot.Robot;
+import frc.robot.Tuning;
+import frc.robot.config.SwerveConfig;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.DemandType;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.ErrorCode;
 
 
 public class SwerveModule {
     public int moduleNumber;
 
-    private TalonFX driveMotor;
-    private TalonFX angleMotor;
-    private CANCoder angleEncoder;
-    private double angleOffset;
+    private final ModuleIO io;
+    private volatile double angleOffset;
+    private final double wheelCircumference;
+
+    /* Sensor values read once per loop in readSensors() */
+    private double driveRotations;
+    private volatile double driveVelocity;      // wheel rotations per second
+    private double angleDegrees;
+    private volatile double angleVelocity;      // degrees per second
 
     private double lastAngle;
 
-    SimpleMotorFeedforward feedforward = new SimpleMotorFeedforward(Constants.SwerveDrivetrain.FF_kS, Constants.SwerveDrivetrain.FF_kV, Constants.SwerveDrivetrain.FF_kA);
+    private final SwerveConfig config;
 
-    public SwerveModule(int moduleNumber, SwerveModuleConstants moduleConstants) {
-        this.moduleNumber = moduleNumber;
+    SimpleMotorFeedforward feedforward;
 
-        this.angleOffset = moduleConstants.angleOffset;
+    /* Gains currently in the active slot of each motor */
+    private double appliedAngleP;
+    private double appliedAngleD;
+    private double appliedDriveP;
 
-        /* Angle Encoder Config */
-        this.angleEncoder = new CANCoder(moduleConstants.cancoderID);
-        configAngleEncoder();
+    /**
+     * @param io Motors and encoder of this module, configured with the gains in {@link Tuning}
+     */
+    public SwerveModule(int moduleNumber, SwerveConfig config, ModuleIO io) {
+        this.moduleNumber = moduleNumber;
+        this.config = config;
+        this.io = io;
+        SwerveModuleConstants moduleConstants = config.getModule(moduleNumber);
 
-        /* Drive Motor Config */
-        this.driveMotor = new TalonFX(moduleConstants.driveMotorID);
-        configDriveMotor();
+        Properties calibration = SwerveCalibration.load();
+        this.angleOffset = SwerveCalibration.getAngleOffset(calibration, moduleNumber, moduleConstants.angleOffset);
+        this.wheelCircumference = SwerveCalibration.getWheelDiameter(calibration, config.wheelDiameter) * Math.PI;
+        this.feedforward = loadDriveFeedforward();
 
-        /* Angle Motor Config */
-        this.angleMotor = new TalonFX(moduleConstants.angleMotorID);
-        configAngleMotor();
+        // Both angle slots start from the same tuned gains
+        this.appliedAngleP = Tuning.ANGLE_kP.get();
+        this.appliedAngleD = Tuning.ANGLE_kD.get();
+        this.appliedDriveP = Tuning.DRIVE_kP.get();
 
+        resetToAbsolute();
+        readSensors();
         this.lastAngle = getState().angle.getDegrees();
     }
 
@@ -52,65 +69,229 @@ public class SwerveModule {
         desiredState = CTREModuleState.optimize(desiredState, getState().angle);    // Custom optimize command, since default WPILib optimize assumes continuous controller which CTRE is not
 
         if(isOpenLoop){
-            double percentOutput = desiredState.speedMetersPerSecond / Constants.SwerveDrivetrain.MAX_SPEED;
-            this.driveMotor.set(ControlMode.PercentOutput, percentOutput);
+            double percentOutput = desiredState.speedMetersPerSecond / this.config.maxSpeed;
+            this.io.setDriveOpenLoop(percentOutput);
         }
         else {
-            double velocity = Conversions.MPSToFalcon(desiredState.speedMetersPerSecond, Constants.SwerveDrivetrain.WHEEL_CIRCUMFERENCE, Constants.SwerveDrivetrain.DRIVE_GEAR_RATIO);
-            this.driveMotor.set(ControlMode.Velocity, velocity, DemandType.ArbitraryFeedForward, feedforward.calculate(desiredState.speedMetersPerSecond));
+            this.io.setDriveVelocity(desiredState.speedMetersPerSecond / this.wheelCircumference, feedforward.calculate(desiredState.speedMetersPerSecond));
         }
 
-        double angle = (Math.abs(desiredState.speedMetersPerSecond) <= (Constants.SwerveDrivetrain.MAX_SPEED * 0.01)) ? lastAngle : desiredState.angle.getDegrees();   // Prevent rotating module if speed is less then 1%. Prevents Jittering.
-        this.angleMotor.set(ControlMode.Position, Conversions.degreesToFalcon(angle, Constants.SwerveDrivetrain.ANGLE_GEAR_RATIO)); 
+        double angle = (Math.abs(desiredState.speedMetersPerSecond) <= (this.config.maxSpeed * 0.01)) ? lastAngle : desiredState.angle.getDegrees();   // Prevent rotating module if speed is less then 1%. Prevents Jittering.
+        this.io.setAngle(angle);
         this.lastAngle = angle;
     }
 
-    private void resetToAbsolute() {
-        double absolutePosition = Conversions.degreesToFalcon(this.getCanCoder().getDegrees() - angleOffset, Constants.SwerveDrivetrain.ANGLE_GEAR_RATIO);
-        this.angleMotor.setSelectedSensorPosition(absolutePosition);
+    /**
+     * Read every sensor value used this loop in one go, at the start of the loop. Getters below
+     * return these values so everything computed in a loop sees the same sample.
+     */
+    public void readSensors() {
+        this.driveRotations = this.io.getDriveRotations();
+        this.driveVelocity = this.io.getDriveVelocity();
+        this.angleDegrees = this.io.getAngle();
+        this.angleVelocity = this.io.getAngleVelocity();
+    }
+
+    /**
+     * Characterized values are stored in volts, CTRE arbitrary feedforward is in percent output
+     */
+    private SimpleMotorFeedforward loadDriveFeedforward() {
+        Properties ff = DeployProperties.load(Constants.Characterization.DRIVE_CONFIG);
+        return new SimpleMotorFeedforward(
+            DeployProperties.getDouble(ff, "kS", this.config.driveKS) / 12.0,
+            DeployProperties.getDouble(ff, "kV", this.config.driveKV) / 12.0,
+            DeployProperties.getDouble(ff, "kA", this.config.driveKA) / 12.0
+        );
+    }
+
+    /* Characterization */
+    public void setDriveVoltage(double volts) {
+        this.io.setDriveOpenLoop(volts / RobotController.getBatteryVoltage());
+        this.io.setAngle(0.0);
+        this.lastAngle = 0.0;
+    }
+
+    public void setAngleVoltage(double volts) {
+        this.io.setDriveOpenLoop(0.0);
+        this.io.setAngleOpenLoop(volts / RobotController.getBatteryVoltage());
+    }
+
+    /* Self test */
+
+    /**
+     * Hold an exact angle, without optimizing or the low speed guard, while running the drive open loop.
+     *
+     * @param degrees Integrated sensor angle, not wrapped
+     */
+    public void setAngleAndDriveVoltage(double degrees, double volts) {
+        this.io.setDriveOpenLoop(volts / RobotController.getBatteryVoltage());
+        this.io.setAngle(degrees);
+        this.lastAngle = degrees;
+    }
+
+    /**
+     * @return Module angle in degrees from the loop sample, not wrapped
+     */
+    public double getAngleDegrees() {
+        return this.angleDegrees;
+    }
+
+    /**
+     * @return Drive wheel velocity in meters per second
+     */
+    public double getDriveVelocity() {
+        return this.driveVelocity * this.wheelCircumference;
+    }
+
+    /**
+     * @return Module steering velocity in degrees per second
+     */
+    public double getAngleVelocity() {
+        return this.angleVelocity;
     }
 
-    private void configAngleEncoder() {
-        this.angleEncoder.configFactoryDefault();
-        System.out.println("HERE");
-        this.angleEncoder.configAllSettings(Robot.ctreConfigs.swerveCANCoderConfig);
-        System.out.println("HERE 2");
+    /* Health */
+    /**
+     * Re-seed the integrated angle sensor from the CANCoder. Safe to call from the health monitor thread.
+     */
+    public void resync() {
+        resetToAbsolute();
     }
 
-    private void configAngleMotor() {
-        this.angleMotor.configFactoryDefault();
-        this.angleMotor.configAllSettings(Robot.ctreConfigs.swerveAngleTalonFXConfig);
-        this.angleMotor.setInverted(Constants.SwerveDrivetrain.ANGLE_MOTOR_INVERTED);
-        this.angleMotor.setNeutralMode(Constants.SwerveDrivetrain.ANGLE_NEUTRAL_MODE);
+    /**
+     * Replace the steering offset and re-seed the integrated sensor with it.
+     *
+     * @param degrees CANCoder reading when the module points straight ahead
+     */
+    public void setAngleOffset(double degrees) {
+        this.angleOffset = degrees;
         resetToAbsolute();
     }
 
-    private void configDriveMotor() {        
-        this.driveMotor.configFactoryDefault();
-        this.driveMotor.configAllSettings(Robot.ctreConfigs.swerveDriveTalonFXConfig);
-        this.driveMotor.setInverted(Constants.SwerveDrivetrain.DRIVE_MOTOR_INVERTED);
-        this.driveMotor.setNeutralMode(Constants.SwerveDrivetrain.DRIVE_NEUTRAL_MODE);
-        this.driveMotor.setSelectedSensorPosition(0);
+    public double getAngleOffset() {
+        return this.angleOffset;
+    }
+
+    /**
+     * @return Drive wheel rotations, independent of the wheel diameter
+     */
+    public double getDriveWheelRotations() {
+        return this.driveRotations;
+    }
+
+    /**
+     * @return CANCoder angle with the module offset removed, in degrees
+     */
+    public double getAbsoluteAngleDegrees() {
+        return this.io.getAbsoluteAngle() - this.angleOffset;
+    }
+
+    /**
+     * @return Angle from the Falcon integrated sensor, in degrees. Read directly, not from the loop sample
+     */
+    public double getIntegratedAngleDegrees() {
+        return this.io.getAngle();
+    }
+
+    /**
+     * @return Error from the most recent CANCoder read
+     */
+    public ErrorCode getCanCoderError() {
+        return this.io.getAbsoluteEncoderError();
+    }
+
+    /**
+     * @return Timestamp of the last CANCoder frame, in seconds
+     */
+    public double getCanCoderTimestamp() {
+        return this.io.getAbsoluteEncoderTimestamp();
+    }
+
+    /**
+     * @return True if the CANCoder or angle motor rebooted since the last call
+     */
+    public boolean hasDeviceReset() {
+        return this.io.hasDeviceReset();
+    }
+
+    private void resetToAbsolute() {
+        this.io.seedAngle(this.getCanCoder().getDegrees() - angleOffset);
+    }
+
+    /**
+     * Push tuned gains to the motors, only sending the ones that differ from what is already in the active slot.
+     */
+    public void applyTunedGains() {
+        double angleP = Tuning.ANGLE_kP.get();
+        double angleD = Tuning.ANGLE_kD.get();
+        double driveP = Tuning.DRIVE_kP.get();
+
+        if (angleP != this.appliedAngleP) {
+            this.io.setAngleKP(angleP);
+            this.appliedAngleP = angleP;
+        }
+        if (angleD != this.appliedAngleD) {
+            this.io.setAngleKD(angleD);
+            this.appliedAngleD = angleD;
+        }
+        if (driveP != this.appliedDriveP) {
+            this.io.setDriveKP(driveP);
+            this.appliedDriveP = driveP;
+        }
+    }
+
+    /**
+     * Change the drive motor supply limit at runtime.
+     *
+     * @param amps Continuous supply current limit
+     */
+    public void setDriveSupplyCurrentLimit(double amps) {
+        this.io.setDriveSupplyCurrentLimit(amps);
+    }
+
+    public double getDriveSupplyCurrent() {
+        return this.io.getDriveSupplyCurrent();
+    }
+
+    public double getDriveStatorCurrent() {
+        return this.io.getDriveStatorCurrent();
+    }
+
+    public double getAngleSupplyCurrent() {
+        return this.io.getAngleSupplyCurrent();
+    }
+
+    public double getAngleStatorCurrent() {
+        return this.io.getAngleStatorCurrent();
     }
 
     public Rotation2d getCanCoder() {
-        return Rotation2d.fromDegrees(angleEncoder.getAbsolutePosition());
+        return Rotation2d.fromDegrees(this.io.getAbsoluteAngle());
     }
 
     public SwerveModuleState getState() {
-        double velocity = Conversions.falconToMPS(this.driveMotor.getSelectedSensorVelocity(), Constants.SwerveDrivetrain.WHEEL_CIRCUMFERENCE, Constants.SwerveDrivetrain.DRIVE_GEAR_RATIO);
-        Rotation2d angle = Rotation2d.fromDegrees(Conversions.falconToDegrees(this.angleMotor.getSelectedSensorPosition(), Constants.SwerveDrivetrain.ANGLE_GEAR_RATIO));
-        return new SwerveModuleState(velocity, angle);
+        return new SwerveModuleState(getDriveVelocity(), getAngle());
     }
 
     public SwerveModulePosition getPosition(){
-        return new SwerveModulePosition(
-            Conversions.falconToMeters(driveMotor.getSelectedSensorPosition(), Constants.SwerveDrivetrain.WHEEL_CIRCUMFERENCE, Constants.SwerveDrivetrain.DRIVE_GEAR_RATIO), 
-            getAngle()
-        );
+        return new SwerveModulePosition(getDriveDistance(), getAngle());
+    }
+
+    /**
+     * @return Drive wheel distance in meters, from the loop sample
+     */
+    public double getDriveDistance() {
+        return this.driveRotations * this.wheelCircumference;
+    }
+
+    /**
+     * @return Module angle in radians, from the loop sample
+     */
+    public double getAngleRadians() {
+        return Math.toRadians(this.angleDegrees);
     }
 
     public Rotation2d getAngle() {
-        return Rotation2d.fromDegrees(Conversions.falconToDegrees(this.angleMotor.getSelectedSensorPosition(), Constants.SwerveDrivetrain.ANGLE_GEAR_RATIO));
-    };
+        return Rotation2d.fromDegrees(this.angleDegrees);
+    }
 }
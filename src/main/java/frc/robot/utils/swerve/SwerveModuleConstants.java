@@ -8,11 +8,20 @@ public class SwerveModuleConstants {
     public final int cancoderID;
     public final double angleOffset;
 
+    /* Steer with Motion Magic instead of plain position control */
+    public final boolean motionMagicSteering;
+
     public SwerveModuleConstants(int driveMotorID, int angleMotorID, int canCoderID, double angleOffset) {
+        this(driveMotorID, angleMotorID, canCoderID, angleOffset, false);
+    }
+
+    public SwerveModuleConstants(int driveMotorID, int angleMotorID, int canCoderID, double angleOffset, boolean motionMagicSteering) {
         this.driveMotorID = driveMotorID;
         this.angleMotorID = angleMotorID;
 
         this.cancoderID = canCoderID;
         this.angleOffset = angleOffset;
+
+        this.motionMagicSteering = motionMagicSteering;
     }
 }
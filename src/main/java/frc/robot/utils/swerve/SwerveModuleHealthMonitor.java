@@ -0,0 +1,144 @@
+package frc.robot.utils.swerve;
+
+import com.ctre.phoenix.ErrorCode;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import frc.lib.util.ThreadPriorities;
+import frc.robot.Constants;
+
+/**
+ * Checks each module's CANCoder against the Falcon integrated sensor from a low rate background
+ * notifier. While a module is stationary the two should agree, so any difference is drift from a
+ * rebooted CANCoder or a slipped sensor and the module is re-seeded from the absolute encoder.
+ */
+public class SwerveModuleHealthMonitor {
+
+    public enum Health {
+        OK,
+        DRIFTING,
+        RESYNCED,
+        STALE,
+        CAN_FAULT
+    }
+
+    private final SwerveModule[] modules;
+    private final Notifier notifier;
+
+    /* Written by the notifier thread, read by the dashboard */
+    private final Health[] health;
+    private final double[] drift;
+    private final int[] resyncCount;
+
+    private final double[] lastFrameTime;
+    private final int[] staleChecks;
+    private final boolean[] resetPending;   // hasDeviceReset clears on read, so a reset is held until the resync
+    private boolean priorityConfigured = false;
+
+    public SwerveModuleHealthMonitor(SwerveModule[] modules) {
+        this.modules = modules;
+        this.health = new Health[modules.length];
+        this.drift = new double[modules.length];
+        this.resyncCount = new int[modules.length];
+        this.lastFrameTime = new double[modules.length];
+        this.staleChecks = new int[modules.length];
+        this.resetPending = new boolean[modules.length];
+
+        for (int i = 0; i < modules.length; i++) {
+            this.health[i] = Health.OK;
+        }
+
+        this.notifier = new Notifier(this::check);
+        this.notifier.setName("SwerveModuleHealth");
+
+        dashboard();
+    }
+
+    public void start() {
+        this.notifier.startPeriodic(Constants.SwerveDrivetrain.HEALTH_CHECK_PERIOD);
+    }
+
+    public void stop() {
+        this.notifier.stop();
+    }
+
+    public Health getHealth(int module) {
+        return this.health[module];
+    }
+
+    /**
+     * @param degrees Any angle
+     * @return The same angle in the range [-180, 180)
+     */
+    private static double wrapDegrees(double degrees) {
+        double wrapped = (degrees + 180.0) % 360.0;
+        if (wrapped < 0) {
+            wrapped += 360.0;
+        }
+        return wrapped - 180.0;
+    }
+
+    private void check() {
+        if (!this.priorityConfigured) {
+            ThreadPriorities.configureBackground("SwerveModuleHealth");
+            this.priorityConfigured = true;
+        }
+        for (int i = 0; i < this.modules.length; i++) {
+            this.health[i] = checkModule(i, this.modules[i]);
+        }
+    }
+
+    private Health checkModule(int i, SwerveModule module) {
+        double absolute = module.getAbsoluteAngleDegrees();
+        if (module.getCanCoderError() != ErrorCode.OK) {
+            this.staleChecks[i] = 0;
+            return Health.CAN_FAULT;
+        }
+
+        /* A CANCoder that stops sending frames keeps returning its last value without an error */
+        double frameTime = module.getCanCoderTimestamp();
+        if (frameTime == this.lastFrameTime[i]) {
+            if (++this.staleChecks[i] >= Constants.SwerveDrivetrain.HEALTH_STALE_CHECKS) {
+                return Health.STALE;
+            }
+        } else {
+            this.staleChecks[i] = 0;
+        }
+        this.lastFrameTime[i] = frameTime;
+
+        if (module.hasDeviceReset()) {
+            this.resetPending[i] = true;
+        }
+        boolean stationary =
+            Math.abs(module.getDriveVelocity()) < Constants.SwerveDrivetrain.HEALTH_STATIONARY_DRIVE_VELOCITY &&
+            Math.abs(module.getAngleVelocity()) < Constants.SwerveDrivetrain.HEALTH_STATIONARY_ANGLE_VELOCITY;
+
+        this.drift[i] = wrapDegrees(absolute - module.getIntegratedAngleDegrees());
+        if (!stationary) {
+            // Can't tell drift apart from sensor latency while steering, keep the last verdict
+            return this.resetPending[i] ? Health.DRIFTING : this.health[i];
+        }
+
+        if (this.resetPending[i] || Math.abs(this.drift[i]) > Constants.SwerveDrivetrain.HEALTH_RESYNC_THRESHOLD) {
+            module.resync();
+            this.resetPending[i] = false;
+            this.resyncCount[i]++;
+            return Health.RESYNCED;
+        }
+        if (Math.abs(this.drift[i]) > Constants.SwerveDrivetrain.HEALTH_DRIFT_WARNING) {
+            return Health.DRIFTING;
+        }
+        return Health.OK;
+    }
+
+    private void dashboard() {
+        ShuffleboardTab tab = Shuffleboard.getTab("Module Health");
+        for (int i = 0; i < this.modules.length; i++) {
+            final int index = i;
+            tab.addString("Mod" + i + " Health", () -> this.health[index].name());
+            tab.addNumber("Mod" + i + " Drift (deg)", () -> this.drift[index]);
+            tab.addNumber("Mod" + i + " Resyncs", () -> this.resyncCount[index]);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package frc.robot.utils.swerve;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.SupplyCurrentLimitConfiguration;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import com.ctre.phoenix.sensors.CANCoder;
+
+import frc.lib.math.Conversions;
+import frc.lib.util.BufferedMotorOutput;
+import frc.robot.Constants;
+import frc.robot.Robot;
+import frc.robot.config.SwerveConfig;
+
+/**
+ * Two Falcons and a CANCoder. Motor requests go through a {@link BufferedMotorOutput} and reach
+ * the Talons at the end of the loop.
+ */
+public class TalonModuleIO implements ModuleIO {
+
+    private final SwerveConfig config;
+    private final TalonFX driveMotor;
+    private final TalonFX angleMotor;
+    private final CANCoder angleEncoder;
+    private final BufferedMotorOutput driveOutput;
+    private final BufferedMotorOutput angleOutput;
+    private final SupplyCurrentLimitConfiguration driveSupplyLimit;
+
+    /* Plain position control in slot 0, or Motion Magic in its own slot */
+    private final ControlMode angleControlMode;
+    private final int angleSlot;
+
+    public TalonModuleIO(int moduleNumber, SwerveConfig config) {
+        this.config = config;
+        SwerveModuleConstants moduleConstants = config.getModule(moduleNumber);
+        this.driveSupplyLimit = config.driveCurrentLimit.toSupplyConfiguration();
+        this.angleControlMode = moduleConstants.motionMagicSteering ? ControlMode.MotionMagic : ControlMode.Position;
+        this.angleSlot = moduleConstants.motionMagicSteering ? Constants.SwerveDrivetrain.ANGLE_MOTION_MAGIC_SLOT : 0;
+
+        /* Angle Encoder Config */
+        this.angleEncoder = new CANCoder(moduleConstants.cancoderID);
+        configAngleEncoder();
+
+        /* Drive Motor Config */
+        this.driveMotor = new TalonFX(moduleConstants.driveMotorID);
+        this.driveOutput = new BufferedMotorOutput(this.driveMotor);
+        configDriveMotor();
+
+        /* Angle Motor Config */
+        this.angleMotor = new TalonFX(moduleConstants.angleMotorID);
+        this.angleOutput = new BufferedMotorOutput(this.angleMotor);
+        configAngleMotor();
+    }
+
+    private void configAngleEncoder() {
+        this.angleEncoder.configFactoryDefault();
+        System.out.println("HERE");
+        this.angleEncoder.configAllSettings(Robot.ctreConfigs.swerveCANCoderConfig);
+        System.out.println("HERE 2");
+    }
+
+    private void configAngleMotor() {
+        this.angleMotor.configFactoryDefault();
+        this.angleMotor.configAllSettings(Robot.ctreConfigs.swerveAngleTalonFXConfig);
+        this.angleMotor.selectProfileSlot(this.angleSlot, 0);
+        this.angleMotor.setInverted(this.config.angleInverted);
+        this.angleMotor.setNeutralMode(this.config.angleBrake ? NeutralMode.Brake : NeutralMode.Coast);
+    }
+
+    private void configDriveMotor() {
+        this.driveMotor.configFactoryDefault();
+        this.driveMotor.configAllSettings(Robot.ctreConfigs.swerveDriveTalonFXConfig);
+        this.driveMotor.setInverted(this.config.driveInverted);
+        this.driveMotor.setNeutralMode(this.config.driveBrake ? NeutralMode.Brake : NeutralMode.Coast);
+        this.driveMotor.setSelectedSensorPosition(0);
+    }
+
+    /* Sensors */
+    @Override
+    public double getDriveRotations() {
+        return this.driveMotor.getSelectedSensorPosition() / 2048.0 / this.config.driveGearRatio;
+    }
+
+    @Override
+    public double getDriveVelocity() {
+        return Conversions.falconToRPM(this.driveMotor.getSelectedSensorVelocity(), this.config.driveGearRatio) / 60.0;
+    }
+
+    @Override
+    public double getAngle() {
+        return Conversions.falconToDegrees(this.angleMotor.getSelectedSensorPosition(), this.config.angleGearRatio);
+    }
+
+    @Override
+    public double getAngleVelocity() {
+        // Velocity is reported per 100ms
+        return Conversions.falconToDegrees(this.angleMotor.getSelectedSensorVelocity(), this.config.angleGearRatio) * 10.0;
+    }
+
+    @Override
+    public double getAbsoluteAngle() {
+        return this.angleEncoder.getAbsolutePosition();
+    }
+
+    @Override
+    public void seedAngle(double degrees) {
+        this.angleMotor.setSelectedSensorPosition(Conversions.degreesToFalcon(degrees, this.config.angleGearRatio));
+    }
+
+    @Override
+    public ErrorCode getAbsoluteEncoderError() {
+        return this.angleEncoder.getLastError();
+    }
+
+    @Override
+    public double getAbsoluteEncoderTimestamp() {
+        return this.angleEncoder.getLastTimestamp();
+    }
+
+    @Override
+    public boolean hasDeviceReset() {
+        // Both flags clear on read, so check both before combining
+        boolean encoderReset = this.angleEncoder.hasResetOccurred();
+        boolean motorReset = this.angleMotor.hasResetOccurred();
+        return encoderReset || motorReset;
+    }
+
+    /* Outputs */
+    @Override
+    public void setDriveOpenLoop(double percent) {
+        this.driveOutput.set(ControlMode.PercentOutput, percent);
+    }
+
+    @Override
+    public void setDriveVelocity(double rotationsPerSecond, double feedforward) {
+        double velocity = Conversions.RPMToFalcon(rotationsPerSecond * 60.0, this.config.driveGearRatio);
+        this.driveOutput.set(ControlMode.Velocity, velocity, DemandType.ArbitraryFeedForward, feedforward);
+    }
+
+    @Override
+    public void setAngle(double degrees) {
+        this.angleOutput.set(this.angleControlMode, Conversions.degreesToFalcon(degrees, this.config.angleGearRatio));
+    }
+
+    @Override
+    public void setAngleOpenLoop(double percent) {
+        this.angleOutput.set(ControlMode.PercentOutput, percent);
+    }
+
+    @Override
+    public void setAngleKP(double kP) {
+        this.angleMotor.config_kP(this.angleSlot, kP, 0);
+    }
+
+    @Override
+    public void setAngleKD(double kD) {
+        this.angleMotor.config_kD(this.angleSlot, kD, 0);
+    }
+
+    @Override
+    public void setDriveKP(double kP) {
+        this.driveMotor.config_kP(0, kP, 0);
+    }
+
+    /**
+     * The peak threshold keeps the same ratio to the continuous limit as the one configured in
+     * {@link frc.lib.util.CTREConfigs}.
+     */
+    @Override
+    public void setDriveSupplyCurrentLimit(double amps) {
+        this.driveSupplyLimit.currentLimit = amps;
+        this.driveSupplyLimit.triggerThresholdCurrent = amps * this.config.driveCurrentLimit.peak / this.config.driveCurrentLimit.continuous;
+        this.driveMotor.configSupplyCurrentLimit(this.driveSupplyLimit, 0);    // Non-blocking, this is called from the main loop
+    }
+
+    @Override
+    public double getDriveSupplyCurrent() {
+        return this.driveMotor.getSupplyCurrent();
+    }
+
+    @Override
+    public double getDriveStatorCurrent() {
+        return this.driveMotor.getStatorCurrent();
+    }
+
+    @Override
+    public double getAngleSupplyCurrent() {
+        return this.angleMotor.getSupplyCurrent();
+    }
+
+    @Override
+    public double getAngleStatorCurrent() {
+        return this.angleMotor.getStatorCurrent();
+    }
+}
@@ -0,0 +1,175 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.lib.util.PowerConsumer;
+import frc.robot.Constants;
+
+/**
+ * Drives the budgeter with synthetic supply currents. Simulated Talons report no supply current,
+ * so the battery sag comes from the injected currents through {@link BatterySim}.
+ */
+class PowerBudgeterTest {
+
+    private static final double DELTA = 1e-6;
+
+    /** Draws whatever current the test sets, and records every budget it is sent. */
+    private static final class FakeConsumer implements PowerConsumer {
+        double supply;
+        double budget = Double.NaN;
+        final List<Double> writeTimes = new ArrayList<>();
+
+        @Override
+        public double getSupplyCurrent() {
+            return supply;
+        }
+
+        @Override
+        public double getStatorCurrent() {
+            return supply;
+        }
+
+        @Override
+        public void setSupplyCurrentBudget(double amps) {
+            budget = amps;
+            writeTimes.add(Timer.getFPGATimestamp());
+        }
+    }
+
+    private PowerBudgeter budgeter;
+    private FakeConsumer drive;
+    private FakeConsumer shooter;
+
+    @BeforeEach
+    void setup() {
+        assertTrue(HAL.initialize(500, 0));
+        SimHooks.pauseTiming();
+        RoboRioSim.resetData();
+        RoboRioSim.setVInVoltage(Constants.Power.NOMINAL_VOLTAGE);
+
+        budgeter = new PowerBudgeter(false);
+        drive = new FakeConsumer();
+        shooter = new FakeConsumer();
+        // Registered out of order, the budgeter sorts by priority
+        budgeter.register("Shooter", shooter, 1, 20.0, 150.0);
+        budgeter.register("Drive", drive, 0, 20.0, 150.0);
+    }
+
+    @AfterEach
+    void shutdown() {
+        SimHooks.resumeTiming();
+    }
+
+    /** One robot loop, optionally sagging the battery with the current drawn in it. */
+    private void loop(boolean sag) {
+        budgeter.periodic();
+        if (sag) {
+            budgeter.simulationPeriodic();
+        }
+        SimHooks.stepTiming(Constants.Simulation.LOOP_PERIOD);
+    }
+
+    private void run(double seconds, boolean sag) {
+        for (double t = 0.0; t < seconds; t += Constants.Simulation.LOOP_PERIOD) {
+            loop(sag);
+        }
+    }
+
+    @Test
+    void priorityIsServedFirst() {
+        drive.supply = 100.0;
+        shooter.supply = 50.0;
+        run(1.0, false);
+
+        // Minimums first, then demand plus headroom in priority order, leftovers to priority again
+        double shooterBudget = shooter.supply + Constants.Power.DEMAND_HEADROOM;
+        assertEquals(shooterBudget, shooter.budget, DELTA);
+        assertEquals(Constants.Power.TOTAL_SUPPLY_BUDGET - shooterBudget, drive.budget, DELTA);
+    }
+
+    @Test
+    void sagShrinksBudgetFromLowestPriority() {
+        drive.supply = 100.0;
+        shooter.supply = 80.0;
+        run(1.0, true);
+
+        double voltage = BatterySim.calculateDefaultBatteryLoadedVoltage(drive.supply + shooter.supply);
+        assertEquals(voltage, budgeter.getBatteryVoltage(), DELTA);
+        assertTrue(voltage < Constants.Power.BROWNOUT_WARN_VOLTAGE);
+        assertTrue(budgeter.getTotalBudget() < Constants.Power.TOTAL_SUPPLY_BUDGET);
+
+        // The drivetrain still gets what it draws, the shooter gives up everything above its minimum
+        assertEquals(drive.supply + Constants.Power.DEMAND_HEADROOM, drive.budget, DELTA);
+        assertTrue(shooter.budget < shooter.supply);
+        assertEquals(budgeter.getTotalBudget(), drive.budget + shooter.budget, DELTA);
+    }
+
+    @Test
+    void smallChangesAreNotSent() {
+        drive.supply = 100.0;
+        shooter.supply = 50.0;
+        run(1.0, false);
+        int driveWrites = drive.writeTimes.size();
+        int shooterWrites = shooter.writeTimes.size();
+
+        // Moves both budgets by less than the hysteresis
+        shooter.supply += Constants.Power.LIMIT_HYSTERESIS / 2.0;
+        run(1.0, false);
+        assertEquals(driveWrites, drive.writeTimes.size());
+        assertEquals(shooterWrites, shooter.writeTimes.size());
+
+        shooter.supply += Constants.Power.LIMIT_HYSTERESIS * 2.0;
+        run(1.0, false);
+        assertEquals(shooterWrites + 1, shooter.writeTimes.size());
+        assertEquals(shooter.supply + Constants.Power.DEMAND_HEADROOM, shooter.budget, DELTA);
+    }
+
+    @Test
+    void writesAreRateLimited() {
+        drive.supply = 100.0;
+        for (int i = 0; i < 100; i++) {
+            // A new budget well past the hysteresis every loop
+            shooter.supply = (i % 2 == 0) ? 40.0 : 70.0;
+            loop(false);
+        }
+
+        assertTrue(shooter.writeTimes.size() > 1);
+        for (int i = 1; i < shooter.writeTimes.size(); i++) {
+            double gap = shooter.writeTimes.get(i) - shooter.writeTimes.get(i - 1);
+            assertTrue(gap >= Constants.Power.LIMIT_UPDATE_PERIOD - DELTA, "Budget written again after " + gap + " s");
+        }
+    }
+
+    @Test
+    void cutsDuringSagSkipTheRateLimit() {
+        drive.supply = 100.0;
+        shooter.supply = 20.0;
+        run(1.0, true);
+        assertTrue(budgeter.getBatteryVoltage() >= Constants.Power.BROWNOUT_WARN_VOLTAGE);
+
+        // The shooter spins up and sags the battery, its budget is raised and then cut in the next loop
+        shooter.supply = 120.0;
+        loop(true);
+        loop(true);
+        loop(true);
+        assertTrue(budgeter.getBatteryVoltage() < Constants.Power.BROWNOUT_WARN_VOLTAGE);
+        assertTrue(shooter.budget < shooter.supply);
+
+        int writes = shooter.writeTimes.size();
+        double gap = shooter.writeTimes.get(writes - 1) - shooter.writeTimes.get(writes - 2);
+        assertTrue(gap < Constants.Power.LIMIT_UPDATE_PERIOD, "Cut waited " + gap + " s");
+    }
+}
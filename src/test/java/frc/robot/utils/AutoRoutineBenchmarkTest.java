@@ -0,0 +1,223 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.commands.PPSwerveControllerCommand;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants;
+import frc.robot.RobotContainer;
+import frc.robot.config.RobotConfig;
+import frc.robot.sim.SimGyroIO;
+import frc.robot.sim.SimModuleIO;
+import frc.robot.sim.SwerveSim;
+import frc.robot.subsystems.SwerveDrivetrain;
+
+/**
+ * Runs every auto routine in deploy/autos through {@link AutoRoutineLoader} and the command
+ * scheduler, on a {@link SwerveDrivetrain} whose gyro and modules are a {@link SwerveSim}, and
+ * compares it with the committed baseline. Fails if a routine has no baseline, got slower or
+ * tracks its paths worse, at the worst point or on average.
+ *
+ * <p>Run with -PupdateAutoBaseline to write the new numbers to src/test/resources instead.
+ */
+class AutoRoutineBenchmarkTest {
+
+    /** Result of running one routine. */
+    private static final class Result {
+        double time;
+        double maxError;
+        double meanError;
+        double peakModuleSpeed;
+        boolean finished;
+    }
+
+    private static final String BASELINE = "/auto-baseline.properties";
+    private static final Path BASELINE_SOURCE = Paths.get("src", "test", "resources", "auto-baseline.properties");
+
+    private static final RobotConfig CONFIG = RobotConfig.forRobot(Constants.Config.DEFAULT_ROBOT);
+
+    @BeforeAll
+    static void startSimulation() {
+        HAL.initialize(500, 0);
+        SimHooks.pauseTiming();
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(true);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+    }
+
+    @AfterAll
+    static void stopSimulation() {
+        PPSwerveControllerCommand.setLoggingCallbacks(null, null, null, null);
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+        SimHooks.resumeTiming();
+    }
+
+    @Test
+    void routinesMatchBaseline() throws IOException {
+        boolean update = Boolean.getBoolean("updateAutoBaseline");
+        Properties baseline = new Properties();
+        try (InputStream in = AutoRoutineBenchmarkTest.class.getResourceAsStream(BASELINE)) {
+            assertTrue(update || in != null, "No auto baseline committed at " + BASELINE_SOURCE + ", run with -PupdateAutoBaseline");
+            if (in != null) {
+                baseline.load(in);
+            }
+        }
+
+        Properties results = new Properties();
+        List<String> problems = new ArrayList<>();
+        for (Path file : listRoutines()) {
+            String name = file.getFileName().toString().replace(".json", "");
+            Result result = run(file);
+
+            results.setProperty(name + ".time", format(result.time));
+            results.setProperty(name + ".maxError", format(result.maxError));
+            results.setProperty(name + ".meanError", format(result.meanError));
+            results.setProperty(name + ".peakModuleSpeed", format(result.peakModuleSpeed));
+            System.out.println(String.format("%-24s time %6.2fs  max error %.3fm  mean error %.3fm  peak module %.2fm/s",
+                name, result.time, result.maxError, result.meanError, result.peakModuleSpeed));
+
+            if (!result.finished) {
+                problems.add(name + " still running after " + Constants.Simulation.AUTO_PERIOD + "s");
+            }
+            if (update) {
+                continue;
+            }
+            String baseTime = baseline.getProperty(name + ".time");
+            String baseError = baseline.getProperty(name + ".maxError");
+            String baseMeanError = baseline.getProperty(name + ".meanError");
+            if (baseTime == null || baseError == null || baseMeanError == null) {
+                problems.add(name + " has no baseline, run with -PupdateAutoBaseline");
+                continue;
+            }
+            if (result.time > Double.parseDouble(baseTime) + Constants.Simulation.AUTO_TIME_TOLERANCE) {
+                problems.add(name + " took " + format(result.time) + "s, slower than " + baseTime + "s");
+            }
+            if (result.maxError > Double.parseDouble(baseError) + Constants.Simulation.AUTO_ERROR_TOLERANCE) {
+                problems.add(name + " tracked within " + format(result.maxError) + "m, worse than " + baseError + "m");
+            }
+            if (result.meanError > Double.parseDouble(baseMeanError) + Constants.Simulation.AUTO_MEAN_ERROR_TOLERANCE) {
+                problems.add(name + " tracked " + format(result.meanError) + "m off on average, worse than " + baseMeanError + "m");
+            }
+        }
+
+        if (update) {
+            try (OutputStream out = Files.newOutputStream(BASELINE_SOURCE)) {
+                results.store(out, "Auto routine baseline, regenerate with ./gradlew test -PupdateAutoBaseline");
+            }
+            System.out.println("Updated " + BASELINE_SOURCE);
+        }
+        assertTrue(problems.isEmpty(), String.join("\n", problems));
+    }
+
+    private static String format(double value) {
+        return String.format("%.4f", value);
+    }
+
+    private static List<Path> listRoutines() throws IOException {
+        Path directory = Filesystem.getDeployDirectory().toPath().resolve(Constants.Auton.ROUTINE_DIRECTORY);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.toString().endsWith(".json")).sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    /**
+     * Run one routine like autonomous does, sensors and then the scheduler every loop, until it
+     * ends. Tracking error is how far the model is from the pose the path command targets.
+     */
+    private static Result run(Path file) throws IOException {
+        SwerveSim sim = new SwerveSim(CONFIG.swerve);
+        Pose2d start = startPose(file);
+        sim.reset(start);
+
+        SwerveDrivetrain drivetrain = new SwerveDrivetrain(CONFIG.swerve, new SimGyroIO(sim, CONFIG.swerve.invertGyro),
+            SimModuleIO.create(sim, CONFIG.swerve));
+        drivetrain.getHeading().reset(start.getRotation().getDegrees());
+        drivetrain.readSensors();
+        drivetrain.resetOdometry(start);
+
+        Command routine = new AutoRoutineLoader(drivetrain, CONFIG.auton, RobotContainer.createAutoEvents(drivetrain)).load(file);
+        assertNotNull(routine, "Unable to load " + file);
+
+        Result result = new Result();
+        Pose2d[] target = new Pose2d[1];
+        PPSwerveControllerCommand.setLoggingCallbacks(null, pose -> target[0] = pose, null, null);
+
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        double dt = Constants.Simulation.LOOP_PERIOD;
+        int errorSamples = 0;
+        double errorSum = 0.0;
+        try {
+            routine.schedule();
+            while (routine.isScheduled() && result.time < Constants.Simulation.AUTO_PERIOD) {
+                drivetrain.readSensors();
+                target[0] = null;
+                scheduler.run();
+                if (target[0] != null) {
+                    double error = sim.getPose().getTranslation().getDistance(target[0].getTranslation());
+                    result.maxError = Math.max(result.maxError, error);
+                    errorSum += error;
+                    errorSamples++;
+                }
+
+                sim.step(dt);
+                SimHooks.stepTiming(dt);
+                for (int i = 0; i < 4; i++) {
+                    result.peakModuleSpeed = Math.max(result.peakModuleSpeed, Math.abs(sim.getModuleSpeed(i)));
+                }
+                result.time += dt;
+            }
+            result.finished = !routine.isScheduled();
+        } finally {
+            scheduler.cancelAll();
+            scheduler.unregisterSubsystem(drivetrain);
+        }
+
+        result.meanError = (errorSamples > 0) ? errorSum / errorSamples : 0.0;
+        return result;
+    }
+
+    /**
+     * @return Where the robot is placed for the routine, the start of its first path
+     */
+    private static Pose2d startPose(Path file) throws IOException {
+        JsonNode routine = new ObjectMapper().readTree(file.toFile());
+        for (JsonNode step : routine.path("steps")) {
+            if (step.has("path")) {
+                return PathPlanner.loadPath(step.get("path").asText(),
+                    new PathConstraints(CONFIG.auton.maxSpeed, CONFIG.auton.maxAcceleration)).getInitialHolonomicPose();
+            }
+        }
+        return new Pose2d();
+    }
+}
@@ -0,0 +1,146 @@
+package frc.robot.utils.nav;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants;
+
+/**
+ * Searches the committed field grid. The worst case queries cross the whole field around both
+ * charge stations, the most cells any search on this field expands. Their timing only runs in
+ * ./gradlew benchmark, where it is reported instead of asserted.
+ */
+class GridPathfinderTest {
+
+    /* Desktop seconds per worst case search. The roboRIO is roughly ten times slower and still has to
+     * generate the trajectory inside Constants.Pathfinding.GENERATION_TIMEOUT */
+    private static final double SEARCH_BUDGET = 0.02;
+    private static final int WARMUP_SEARCHES = 50;
+    private static final int TIMED_SEARCHES = 200;
+
+    private static final Translation2d[][] WORST_CASES = {
+        { new Translation2d(2.2, 2.75), new Translation2d(14.3, 2.75) },    // community to community, through the charge stations' gap
+        { new Translation2d(2.0, 7.2), new Translation2d(14.5, 0.6) },      // loading zone to the far corner
+        { new Translation2d(3.9, 0.7), new Translation2d(3.9, 4.7) },       // around a charge station
+    };
+
+    private static FieldGrid grid;
+
+    @BeforeAll
+    static void loadGrid() throws IOException {
+        assertTrue(HAL.initialize(500, 0));
+        grid = FieldGrid.read(Filesystem.getDeployDirectory().toPath().resolve(Constants.Navigation.GRID_FILE + ".grid"));
+    }
+
+    @Test
+    void committedGridMatchesTheOutlines() throws IOException {
+        Path source = Paths.get("nav", "field.json");
+        FieldGrid generated = FieldGridGenerator.generate(new ObjectMapper().readTree(source.toFile()));
+
+        assertEquals(generated.getWidth(), grid.getWidth());
+        assertEquals(generated.getHeight(), grid.getHeight());
+        short[] expected = new short[generated.getCellCount()];
+        short[] actual = new short[grid.getCellCount()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = generated.getCost(i);
+            actual[i] = grid.getCost(i);
+        }
+        assertArrayEquals(expected, actual, "Regenerate the grid with ./gradlew fieldGrid");
+    }
+
+    @Test
+    void routesStayOffBlockedCells() {
+        GridPathfinder pathfinder = new GridPathfinder(grid);
+        for (Translation2d[] query : WORST_CASES) {
+            List<Translation2d> route = pathfinder.findPath(query[0], query[1]);
+            assertTrue(route.size() >= 2, "No route from " + query[0] + " to " + query[1]);
+            assertEquals(query[0], route.get(0));
+            assertEquals(query[1], route.get(route.size() - 1));
+
+            for (int i = 1; i < route.size(); i++) {
+                Translation2d from = route.get(i - 1);
+                Translation2d to = route.get(i);
+                int steps = (int) Math.ceil(from.getDistance(to) / (grid.getCellSize() / 2.0));
+                for (int step = 0; step <= steps; step++) {
+                    Translation2d point = from.interpolate(to, (double) step / Math.max(1, steps));
+                    int cell = grid.index(grid.toCellX(point.getX()), grid.toCellY(point.getY()));
+                    assertFalse(grid.isBlocked(cell), "Route crosses a blocked cell at " + point);
+                }
+            }
+        }
+    }
+
+    @Test
+    void chargeStationIsAvoidedWhenThereIsRoom() {
+        GridPathfinder pathfinder = new GridPathfinder(grid);
+        List<Translation2d> route = pathfinder.findPath(WORST_CASES[0][0], WORST_CASES[0][1]);
+        for (Translation2d waypoint : route) {
+            int cell = grid.index(grid.toCellX(waypoint.getX()), grid.toCellY(waypoint.getY()));
+            assertTrue(grid.getCost(cell) < Constants.Navigation.COST_SCALE, "Route goes over " + waypoint);
+        }
+    }
+
+    @Test
+    void blockedGoalHasNoRoute() {
+        GridPathfinder pathfinder = new GridPathfinder(grid);
+        assertTrue(pathfinder.findPath(new Translation2d(3.0, 1.0), new Translation2d(0.5, 2.0)).isEmpty());
+    }
+
+    @Test
+    void worstCaseQueriesStayUnderTheExpansionLimit() {
+        GridPathfinder pathfinder = new GridPathfinder(grid);
+        for (Translation2d[] query : WORST_CASES) {
+            search(pathfinder, query, 0);
+            assertTrue(pathfinder.getExpansions() < Constants.Navigation.MAX_EXPANSIONS,
+                query[0] + " to " + query[1] + " expanded " + pathfinder.getExpansions() + " cells");
+        }
+    }
+
+    /**
+     * Wall clock time depends on the machine and its load, so this is a report, never a failure.
+     */
+    @Test
+    @Tag("benchmark")
+    void worstCaseQueryTimes() {
+        GridPathfinder pathfinder = new GridPathfinder(grid);
+        for (Translation2d[] query : WORST_CASES) {
+            for (int i = 0; i < WARMUP_SEARCHES; i++) {
+                search(pathfinder, query, i);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < TIMED_SEARCHES; i++) {
+                search(pathfinder, query, i);
+            }
+            double seconds = (System.nanoTime() - start) * 1e-9 / TIMED_SEARCHES;
+
+            System.out.println(String.format("%s to %s: %.2f ms (budget %.0f ms)%s, %d expansions",
+                query[0], query[1], seconds * 1000.0, SEARCH_BUDGET * 1000.0,
+                (seconds < SEARCH_BUDGET) ? "" : " OVER BUDGET", pathfinder.getExpansions()));
+        }
+    }
+
+    /**
+     * Alternates the direction so every search is a fresh one instead of reusing the last path.
+     */
+    private static void search(GridPathfinder pathfinder, Translation2d[] query, int i) {
+        int from = i % 2;
+        assertFalse(pathfinder.findPath(query[from], query[1 - from]).isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package frc.robot.utils.swerve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants;
+
+/**
+ * Replays synthetic slip and collision scenarios through the detector and checks which modules and
+ * events get flagged and how far the slipping modules are trusted.
+ */
+class SlipDetectorTest {
+
+    private static final int LOOPS = 25;
+    private static final double DELTA = 1e-9;
+
+    /** Changes the ideal measurements of one loop into what a misbehaving robot reports. */
+    private interface Corruption {
+        void apply(int loop, double[] speeds, double[] angles, double[] imu);
+    }
+
+    /**
+     * Feed the detector a robot moving at a constant robot relative velocity for {@link #LOOPS}
+     * loops, letting the corruption change each loop's measurements.
+     */
+    private static SlipDetector replay(double vx, double vy, double omega, Corruption corruption) {
+        SlipDetector detector = new SlipDetector(Constants.SwerveDrivetrain.MODULE_TRANSLATIONS);
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+        double[] imu = new double[3];    // gyro rate, forward and left acceleration
+
+        for (int loop = 0; loop < LOOPS; loop++) {
+            for (int i = 0; i < 4; i++) {
+                double mx = vx - omega * Constants.SwerveDrivetrain.MODULE_TRANSLATIONS[i].getY();
+                double my = vy + omega * Constants.SwerveDrivetrain.MODULE_TRANSLATIONS[i].getX();
+                speeds[i] = Math.hypot(mx, my);
+                angles[i] = Math.atan2(my, mx);
+            }
+            imu[0] = omega;
+            // Constant velocity in the rotating frame still needs centripetal acceleration
+            imu[1] = -omega * vy;
+            imu[2] = omega * vx;
+
+            corruption.apply(loop, speeds, angles, imu);
+            detector.update(speeds, angles, imu[0], imu[1], imu[2], Constants.Simulation.LOOP_PERIOD);
+        }
+        return detector;
+    }
+
+    private static void assertFit(SlipDetector detector, double vx, double vy, double omega, double tolerance) {
+        assertEquals(vx, detector.getVx(), tolerance);
+        assertEquals(vy, detector.getVy(), tolerance);
+        assertEquals(omega, detector.getOmega(), tolerance);
+    }
+
+    /** The module slips and is barely trusted, the others are fully trusted. */
+    private static void assertOnlySlipping(SlipDetector detector, int module) {
+        for (int i = 0; i < 4; i++) {
+            if (i == module) {
+                assertTrue(detector.isSlipping(i), "Module " + i + " should slip");
+                assertTrue(detector.getWeight(i) < 0.25, "Module " + i + " weight " + detector.getWeight(i));
+            } else {
+                assertFalse(detector.isSlipping(i), "Module " + i + " should not slip");
+                assertEquals(1.0, detector.getWeight(i), DELTA);
+            }
+        }
+    }
+
+    @Test
+    void cleanDrive() {
+        SlipDetector detector = replay(2.0, 0.5, 1.0, (loop, speeds, angles, imu) -> {});
+        assertOnlySlipping(detector, -1);
+        assertFalse(detector.isColliding());
+        assertFit(detector, 2.0, 0.5, 1.0, 0.01);
+    }
+
+    @Test
+    void wheelSpinning() {
+        SlipDetector detector = replay(2.0, 0.5, 1.0, (loop, speeds, angles, imu) -> speeds[1] *= 2.5);
+        assertOnlySlipping(detector, 1);
+        assertFit(detector, 2.0, 0.5, 1.0, 0.1);
+    }
+
+    @Test
+    void wheelStalledWhileTurning() {
+        SlipDetector detector = replay(1.0, 0.0, 2.0, (loop, speeds, angles, imu) -> speeds[3] = 0.0);
+        assertOnlySlipping(detector, 3);
+        assertFit(detector, 1.0, 0.0, 2.0, 0.1);
+    }
+
+    @Test
+    void pinnedAgainstWall() {
+        // Wheels agree on spinning in place but the gyro says the robot is pinned
+        SlipDetector detector = replay(0.0, 0.0, 2.0, (loop, speeds, angles, imu) -> imu[0] = 0.0);
+        assertTrue(detector.getGyroDisagreement() > 1.0);
+        assertEquals(4, detector.getSlippingCount());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(detector.getWeight(i) < 0.5, "Module " + i + " weight " + detector.getWeight(i));
+        }
+        assertEquals(0.0, detector.getOmega(), 0.5);
+    }
+
+    @Test
+    void sideCollision() {
+        SlipDetector detector = replay(1.5, 0.0, 0.0, (loop, speeds, angles, imu) -> {
+            if (loop == LOOPS - 5) {
+                imu[2] = 25.0;
+            }
+        });
+        assertTrue(detector.isColliding());
+        assertEquals(1, detector.getCollisionCount());
+        assertTrue(detector.getUnexplainedAcceleration() < Constants.SwerveDrivetrain.COLLISION_ACCEL);
+        assertOnlySlipping(detector, -1);
+    }
+
+    @Test
+    void collisionClears() {
+        SlipDetector detector = replay(1.5, 0.0, 0.0, (loop, speeds, angles, imu) -> {
+            if (loop == 2) {
+                imu[2] = 25.0;
+            }
+        });
+        assertFalse(detector.isColliding());
+        assertEquals(1, detector.getCollisionCount());
+    }
+}